@@ -0,0 +1,67 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest.jmh;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static java.nio.charset.Charset.defaultCharset;
+
+/**
+ * Loads the english dictionary bundled with the tests.
+ */
+final class BenchmarkWords {
+
+    static final String ENGLISH_WORDS_TXT = "english_words.text";
+
+    private BenchmarkWords() {}
+
+    static List<String> getEnglishWords() {
+        ClassLoader loader = BenchmarkWords.class.getClassLoader();
+        List<String> result = new ArrayList<>();
+        try (BufferedReader buff = new BufferedReader(new InputStreamReader(loader.getResourceAsStream(ENGLISH_WORDS_TXT), defaultCharset()))) {
+            for (String line = buff.readLine(); line != null; line = buff.readLine()) {
+                result.add(line);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Returns up to 'count' distinct prefixes of the given length, taken from random words.
+     */
+    static String[] samplePrefixes(List<String> words, int length, int count) {
+        Random random = new Random(42);
+        Set<String> prefixes = new LinkedHashSet<>();
+        for(int i = 0; i < count * 100 && prefixes.size() < count; ++i) {
+            String word = words.get(random.nextInt(words.size()));
+            if (word.length() >= length) {
+                prefixes.add(word.substring(0, length));
+            }
+        }
+        return prefixes.toArray(new String[0]);
+    }
+}
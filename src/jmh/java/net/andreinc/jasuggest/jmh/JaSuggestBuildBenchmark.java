@@ -0,0 +1,66 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest.jmh;
+
+import net.andreinc.jasuggest.JaSuggest;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time needed to build a JaSuggest from the english dictionary, for each build option.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class JaSuggestBuildBenchmark {
+
+    private List<String> words;
+
+    @Setup
+    public void loadWords() {
+        words = BenchmarkWords.getEnglishWords();
+    }
+
+    @Benchmark
+    public JaSuggest buildDefault() {
+        return JaSuggest.builder().buildFrom(words);
+    }
+
+    @Benchmark
+    public JaSuggest buildPrebuiltWords() {
+        return JaSuggest.builder().prebuiltWords().buildFrom(words);
+    }
+
+    @Benchmark
+    public JaSuggest buildParallel() {
+        return JaSuggest.builder().parallelBuild().buildFrom(words);
+    }
+
+    @Benchmark
+    public JaSuggest buildCompact() {
+        return JaSuggest.builder().compact().buildFrom(words);
+    }
+
+    @Benchmark
+    public JaSuggest buildRadix() {
+        return JaSuggest.builder().radix().buildFrom(words);
+    }
+}
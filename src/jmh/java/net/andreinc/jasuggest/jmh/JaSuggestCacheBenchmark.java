@@ -0,0 +1,81 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest.jmh;
+
+import net.andreinc.jasuggest.JaCacheConfig;
+import net.andreinc.jasuggest.JaSuggest;
+import net.jodah.expiringmap.ExpirationPolicy;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures findSuggestions(prefix, 10) when the result is cached, derived from the cached result of a
+ * shorter prefix, or not cached at all.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class JaSuggestCacheBenchmark {
+
+    private JaSuggest cached;
+    private JaSuggest singleEntryCache;
+    private JaSuggest derived;
+
+    private String[] derivedPrefixes;
+    private boolean flip = false;
+    private int next = 0;
+
+    @Setup
+    public void buildTrie() {
+        List<String> words = BenchmarkWords.getEnglishWords();
+
+        cached = JaSuggest.builder().withCache().buildFrom(words);
+        cached.findSuggestions("ab", 10);
+
+        // Two prefixes not sharing a cached ancestor evict each other, so every query is a miss
+        singleEntryCache = JaSuggest.builder().withCache(JaCacheConfig.builder().maxSize(1).build()).buildFrom(words);
+
+        // The complete result for "ab" is always the most recently accessed entry, and each derived result
+        // evicts the previous one, so every query is derived from "ab"
+        derived = JaSuggest.builder()
+                           .withCache(JaCacheConfig.builder().maxSize(2).expirationPolicy(ExpirationPolicy.ACCESSED).build())
+                           .buildFrom(words);
+        derived.findSuggestions("ab");
+        derivedPrefixes = new String[] { "aba", "abb", "abd", "abe", "abh", "abi", "abj", "abl", "abn", "abo", "abr", "abs", "abu", "aby" };
+    }
+
+    @Benchmark
+    public List<String> cacheHit() {
+        return cached.findSuggestions("ab", 10);
+    }
+
+    @Benchmark
+    public List<String> cacheMiss() {
+        flip = !flip;
+        return singleEntryCache.findSuggestions(flip ? "ab" : "ca", 10);
+    }
+
+    @Benchmark
+    public List<String> cacheDerivedFromShorterPrefix() {
+        next = (next + 1) % derivedPrefixes.length;
+        return derived.findSuggestions(derivedPrefixes[next], 10);
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest.jmh;
+
+import net.andreinc.jasuggest.JaSuggest;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures findSuggestions() without cache, per prefix length and Trie type.
+ *
+ * DEFAULT and PREBUILT compare the two ways of producing the terms of the HashMap based Trie: building them
+ * from the path, or reading the words stored on the leaves.
+ *
+ * findSuggestionsSink* pass the results to a sink instead of a new List; with the GC profiler they show the
+ * allocations left on the query path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+public class JaSuggestQueryBenchmark {
+
+    public enum TrieType { DEFAULT, PREBUILT, COMPACT, RADIX }
+
+    @Param({ "1", "2", "3", "5" })
+    private int prefixLength;
+
+    @Param({ "DEFAULT", "PREBUILT", "COMPACT", "RADIX" })
+    private TrieType trieType;
+
+    private JaSuggest jaSuggest;
+    private String[] prefixes;
+    private int next = 0;
+    private final List<String> results = new ArrayList<>();
+
+    @Setup
+    public void buildTrie() {
+        List<String> words = BenchmarkWords.getEnglishWords();
+        JaSuggest.JaSuggestBuilder builder = JaSuggest.builder();
+
+        switch (trieType) {
+            case PREBUILT: builder.prebuiltWords(); break;
+            case COMPACT: builder.compact(); break;
+            case RADIX: builder.radix(); break;
+            default: break;
+        }
+
+        jaSuggest = builder.buildFrom(words);
+        prefixes = BenchmarkWords.samplePrefixes(words, prefixLength, 64);
+    }
+
+    private String nextPrefix() {
+        next = (next + 1) % prefixes.length;
+        return prefixes[next];
+    }
+
+    @Benchmark
+    public List<String> findSuggestionsAll() {
+        return jaSuggest.findSuggestions(nextPrefix());
+    }
+
+    @Benchmark
+    public List<String> findSuggestionsMax10() {
+        return jaSuggest.findSuggestions(nextPrefix(), 10);
+    }
+
+    @Benchmark
+    public List<String> findSuggestionsNotSorted() {
+        return jaSuggest.findSuggestions(nextPrefix(), false);
+    }
+
+    @Benchmark
+    public void findSuggestionsSinkMax10(Blackhole blackhole) {
+        jaSuggest.findSuggestions(nextPrefix(), 10, blackhole::consume);
+    }
+
+    @Benchmark
+    public List<String> findSuggestionsReusedListMax10() {
+        results.clear();
+        jaSuggest.findSuggestions(nextPrefix(), 10, results);
+        return results;
+    }
+}
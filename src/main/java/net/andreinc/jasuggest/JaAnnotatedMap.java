@@ -0,0 +1,127 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * A Trie node that also keeps the weights and the categories of the terms.
+ * Only the Tries built with buildFromWeighted() or buildFromCategorized() (or given a weight later) use it,
+ * so the plain nodes don't pay for the fields.
+ */
+@ToString(callSuper = true, exclude = { "termCategories", "categories" })
+@NoArgsConstructor
+final class JaAnnotatedMap extends JaMap {
+
+    private static final long serialVersionUID = 1L;
+
+    @Getter @Setter private long weight;
+    @Getter @Setter private long maxWeight;
+    // The categories of the term (for the leaves) and of all the terms of the sub-trie, as JaCategories bitsets.
+    // Null when there are none.
+    @Getter @Setter private long[] termCategories;
+    @Getter @Setter private long[] categories;
+
+    private JaAnnotatedMap(JaAnnotatedMap node) {
+        super(node);
+        this.weight = node.weight;
+        this.maxWeight = node.maxWeight;
+        this.termCategories = node.termCategories;
+        this.categories = node.categories;
+    }
+
+    /**
+     * Returns a copy of the given Trie made of JaAnnotatedMap nodes, with all the weights 0 and no categories.
+     * The Trie is copied with an explicit stack, so its depth is not limited.
+     */
+    static JaAnnotatedMap annotate(JaMap root) {
+        JaAnnotatedMap copy = new JaAnnotatedMap();
+        Deque<JaMap> nodes = new ArrayDeque<>();
+        Deque<JaAnnotatedMap> copies = new ArrayDeque<>();
+        nodes.push(root);
+        copies.push(copy);
+
+        while (!nodes.isEmpty()) {
+            JaMap node = nodes.pop();
+            JaAnnotatedMap current = copies.pop();
+            current.setLeaf(node.isLeaf());
+            current.setTermId(node.getTermId());
+            node.forEach((c, child) -> {
+                JaAnnotatedMap childCopy = new JaAnnotatedMap();
+                current.put(c, childCopy);
+                nodes.push(child);
+                copies.push(childCopy);
+            });
+        }
+
+        return copy;
+    }
+
+    @Override
+    JaMap newNode() {
+        return new JaAnnotatedMap();
+    }
+
+    @Override
+    JaMap copy() {
+        return new JaAnnotatedMap(this);
+    }
+
+    @Override
+    void markLeaf(long weight) {
+        this.weight = isLeaf() ? Math.max(this.weight, weight) : weight;
+        super.markLeaf(weight);
+    }
+
+    @Override
+    void updateMaxWeight(long weight) {
+        this.maxWeight = Math.max(this.maxWeight, weight);
+    }
+
+    @Override
+    void unmarkLeaf() {
+        super.unmarkLeaf();
+        this.weight = 0;
+        this.termCategories = null;
+    }
+
+    @Override
+    void refresh() {
+        long maxWeight = isLeaf() ? weight : 0;
+        long[] categories = isLeaf() ? termCategories : null;
+        for(JaMap node : values()) {
+            maxWeight = Math.max(maxWeight, node.getMaxWeight());
+            categories = JaCategories.union(categories, node.getCategories());
+        }
+        this.maxWeight = maxWeight;
+        this.categories = categories;
+    }
+
+    /**
+     * The estimation of JaMap plus the two weights and the references to the categories.
+     */
+    @Override
+    long memorySize() {
+        return super.memorySize() + 24;
+    }
+}
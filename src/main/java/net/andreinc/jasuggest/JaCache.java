@@ -0,0 +1,79 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * The cache of the results of a JaSuggest (see JaSuggestBuilder.withCache()).
+ *
+ * The default implementation is JaExpiringCache, configured by a JaCacheConfig. JaTinyLfuCache is bounded by the
+ * estimated size of the results in bytes, and only admits the results that are queried more often than the
+ * ones they would replace.
+ *
+ * The implementations are called concurrently, so they must be thread-safe. The cached lists are never modified.
+ */
+public interface JaCache {
+
+    /**
+     * @return The cached result, or null if it's not cached.
+     */
+    List<String> get(JaCacheKey key);
+
+    /**
+     * Returns the cached result like get(), but without counting it as a lookup of the key: JaSuggest uses it for the
+     * probes that don't answer a query directly (eg.: the shorter prefixes a result can be derived from).
+     * By default it's get().
+     *
+     * @return The cached result, or null if it's not cached.
+     */
+    default List<String> peek(JaCacheKey key) { return get(key); }
+
+    /**
+     * Caches a result. The implementation can decide not to keep it.
+     */
+    void put(JaCacheKey key, List<String> value);
+
+    void remove(JaCacheKey key);
+
+    int size();
+
+    /**
+     * @return A copy of the cached entries.
+     */
+    Map<JaCacheKey, List<String>> snapshot();
+
+    /**
+     * Registers a listener called with the key of each result evicted by the cache (not with the removed ones).
+     * Registering a listener equal to one already registered has no effect.
+     */
+    default void addEvictionListener(Consumer<JaCacheKey> listener) {}
+
+    /**
+     * Returns up to 'n' cached keys, the most valuable first (eg.: to warm the cache of a new JaSuggest).
+     * By default the shortest prefixes come first: they are shared by the most queries and are the slowest to compute.
+     */
+    default List<JaCacheKey> hottestKeys(int n) {
+        List<JaCacheKey> keys = new ArrayList<>(snapshot().keySet());
+        keys.sort(Comparator.comparingInt((JaCacheKey key) -> key.getPrefix().length()).thenComparing(JaCacheKey::getPrefix));
+        return new ArrayList<>(keys.subList(0, Math.min(Math.max(n, 0), keys.size())));
+    }
+}
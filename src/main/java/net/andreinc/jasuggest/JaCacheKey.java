@@ -0,0 +1,30 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import lombok.Value;
+
+/**
+ * The key of a cached result: a normalized prefix and the options of the query.
+ */
+@Value
+public class JaCacheKey {
+    private String prefix;
+    // Integer.MAX_VALUE when the cached list contains all the suggestions
+    private int maxResults;
+    private boolean sorted;
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sets of category ids (eg.: tenants or catalogs), stored as bitsets: bit 'i' of the long[] is set for the category 'i'.
+ * The arrays are never modified once created, so the nodes with the same categories can share them.
+ */
+final class JaCategories {
+
+    private JaCategories() {}
+
+    static long[] of(Collection<Integer> categories) {
+        long[] bits = new long[0];
+        for(Integer category : categories) {
+            if (category == null) {
+                throw new NullPointerException("Null category detected.");
+            }
+            if (category < 0) {
+                throw new IllegalArgumentException("Negative category detected: " + category + ".");
+            }
+            if ((category >>> 6) >= bits.length) {
+                bits = Arrays.copyOf(bits, (category >>> 6) + 1);
+            }
+            bits[category >>> 6] |= 1L << category;
+        }
+        return bits;
+    }
+
+    static boolean intersects(long[] bits, long[] mask) {
+        if (bits == null) {
+            return false;
+        }
+        for(int i = Math.min(bits.length, mask.length) - 1; i >= 0; --i) {
+            if ((bits[i] & mask[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The union of the two sets, one of them if it contains the other (null being the empty set).
+     */
+    static long[] union(long[] a, long[] b) {
+        if (b == null || containsAll(a, b)) {
+            return a;
+        }
+        if (a == null || containsAll(b, a)) {
+            return b;
+        }
+        long[] union = Arrays.copyOf(a, Math.max(a.length, b.length));
+        for(int i = 0; i < b.length; ++i) {
+            union[i] |= b[i];
+        }
+        return union;
+    }
+
+    private static boolean containsAll(long[] a, long[] b) {
+        if (a == null) {
+            return false;
+        }
+        for(int i = 0; i < b.length; ++i) {
+            if ((b[i] & ~(i < a.length ? a[i] : 0)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Assigns the category sets of the sub-tries (see JaAnnotatedMap.getCategories()), bottom-up.
+     * The nodes are visited in post-order with an explicit stack, so the depth of the Trie is not limited.
+     * The equal sets are stored once.
+     *
+     * @return The categories of the Trie.
+     */
+    static long[] propagate(JaAnnotatedMap root, Map<JaCategoryKey, long[]> interned) {
+        Deque<JaAnnotatedMap> stack = new ArrayDeque<>();
+        // True when the children of the node on the stack are already done
+        Deque<Boolean> expanded = new ArrayDeque<>();
+        stack.push(root);
+        expanded.push(false);
+
+        while (!stack.isEmpty()) {
+            JaAnnotatedMap node = stack.pop();
+            if (!expanded.pop()) {
+                stack.push(node);
+                expanded.push(true);
+                for(JaMap child : node.values()) {
+                    stack.push((JaAnnotatedMap) child);
+                    expanded.push(false);
+                }
+                continue;
+            }
+
+            long[] categories = node.isLeaf() ? node.getTermCategories() : null;
+            for(JaMap child : node.values()) {
+                categories = union(categories, child.getCategories());
+            }
+            node.setCategories(intern(categories, interned));
+        }
+
+        return root.getCategories();
+    }
+
+    static long[] intern(long[] categories, Map<JaCategoryKey, long[]> interned) {
+        return (categories == null) ? null : interned.computeIfAbsent(new JaCategoryKey(categories), key -> categories);
+    }
+
+    static Map<JaCategoryKey, long[]> newInterner() { return new HashMap<>(); }
+
+    static final class JaCategoryKey {
+
+        private final long[] bits;
+        private final int hash;
+
+        JaCategoryKey(long[] bits) {
+            // The trailing empty words don't change the set
+            int length = bits.length;
+            while (length > 0 && bits[length - 1] == 0) {
+                length--;
+            }
+            this.bits = (length == bits.length) ? bits : Arrays.copyOf(bits, length);
+            this.hash = Arrays.hashCode(this.bits);
+        }
+
+        @Override
+        public int hashCode() { return hash; }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof JaCategoryKey && Arrays.equals(bits, ((JaCategoryKey) o).bits);
+        }
+    }
+}
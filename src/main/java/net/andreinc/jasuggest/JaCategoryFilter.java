@@ -0,0 +1,59 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Selects the terms having at least one of the given categories, see JaSuggest.findSuggestions(String, int, JaCategoryFilter).
+ */
+public final class JaCategoryFilter {
+
+    private final long[] mask;
+
+    private JaCategoryFilter(long[] mask) {
+        this.mask = mask;
+    }
+
+    public static JaCategoryFilter anyOf(@NonNull int... categories) {
+        List<Integer> list = new ArrayList<>(categories.length);
+        for(int category : categories) {
+            list.add(category);
+        }
+        return anyOf(list);
+    }
+
+    /**
+     * If one of the categories is negative an IllegalArgumentException will be thrown.
+     *
+     * @param categories The categories, at least one.
+     *
+     * @return A filter selecting the terms having at least one of the categories.
+     */
+    public static JaCategoryFilter anyOf(@NonNull Collection<Integer> categories) {
+        if (categories.isEmpty()) {
+            throw new IllegalArgumentException("At least one category is needed.");
+        }
+        return new JaCategoryFilter(JaCategories.of(categories));
+    }
+
+    long[] getMask() { return mask; }
+}
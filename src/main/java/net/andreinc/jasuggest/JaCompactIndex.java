@@ -0,0 +1,99 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * An immutable Trie stored in a few primitive arrays on the heap:
+ * a char[] with the labels, an int[] with the offsets of the children and a long[] leaf bitset.
+ */
+final class JaCompactIndex extends JaFlatIndex {
+
+    private final char[] labels;
+    private final int[] firstChild;
+    private final long[] leaves;
+
+    private JaCompactIndex(char[] labels, int[] firstChild, long[] leaves) {
+        this.labels = labels;
+        this.firstChild = firstChild;
+        this.leaves = leaves;
+    }
+
+    /**
+     * Creates a compact copy of the given Trie.
+     */
+    static JaCompactIndex freeze(JaMap root) {
+        int size = countNodes(root);
+
+        char[] labels = new char[size];
+        int[] firstChild = new int[size + 1];
+        long[] leaves = new long[(size + 63) >>> 6];
+
+        JaMap[] queue = new JaMap[size];
+        queue[0] = root;
+        int next = 1;
+
+        for(int i = 0; i < size; ++i) {
+            JaMap node = queue[i];
+            if (node.isLeaf()) {
+                leaves[i >>> 6] |= 1L << i;
+            }
+            firstChild[i] = next;
+            for(char c : node.sortedKeys()) {
+                labels[next] = c;
+                queue[next++] = node.get(c);
+            }
+        }
+        firstChild[size] = size;
+
+        return new JaCompactIndex(labels, firstChild, leaves);
+    }
+
+    private static int countNodes(JaMap root) {
+        int count = 0;
+        Deque<JaMap> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            JaMap node = stack.pop();
+            count++;
+            for(JaMap child : node.values()) {
+                stack.push(child);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    int size() { return labels.length; }
+
+    @Override
+    public long memorySize() {
+        return JaSuggestStats.align(24) + JaSuggestStats.arrayBytes(labels.length, 2)
+                + JaSuggestStats.arrayBytes(firstChild.length, 4) + JaSuggestStats.arrayBytes(leaves.length, 8);
+    }
+
+    @Override
+    char label(int node) { return labels[node]; }
+
+    @Override
+    int firstChild(int node) { return firstChild[node]; }
+
+    @Override
+    boolean isLeaf(int node) { return (leaves[node >>> 6] & (1L << node)) != 0; }
+}
@@ -0,0 +1,399 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * An immutable minimal automaton (DAWG) of the terms: the Trie where the equivalent sub-tries are stored once.
+ * Two nodes are equivalent when both (or none) mark the end of a term and they have the same children, so
+ * the common suffixes ("-ing", "-ness", "-less") are shared by all the branches ending with them.
+ *
+ * The automaton is built incrementally from the sorted terms (see JaDawgBuilder), so no Trie is needed.
+ * The states are numbered bottom-up. The arcs of a state are contiguous and sorted by label:
+ * the arcs of state 's' are firstArc[s] ... firstArc[s + 1] - 1, each having a label and a target state.
+ * A term is the path from the root, so the results are built while traversing, like in a Trie.
+ */
+final class JaDawgIndex implements JaIndex {
+
+    private final int root;
+    private final int[] firstArc;
+    private final char[] labels;
+    private final int[] targets;
+    private final long[] finals;
+
+    private JaDawgIndex(int root, int[] firstArc, char[] labels, int[] targets, long[] finals) {
+        this.root = root;
+        this.firstArc = firstArc;
+        this.labels = labels;
+        this.targets = targets;
+        this.finals = finals;
+    }
+
+    /**
+     * Creates the minimal automaton of the terms of the given Trie. The terms are enumerated in ascending order
+     * with an explicit stack, and added to a JaDawgBuilder.
+     */
+    static JaDawgIndex freeze(JaMap root) {
+        JaDawgBuilder builder = new JaDawgBuilder();
+        StringBuilder term = new StringBuilder();
+        Deque<JaMap> nodes = new ArrayDeque<>();
+        // The depth of each node on the stack, and the character leading to it
+        Deque<Integer> depths = new ArrayDeque<>();
+        Deque<Character> labels = new ArrayDeque<>();
+        nodes.push(root);
+        depths.push(0);
+        labels.push('\u0000');
+
+        while (!nodes.isEmpty()) {
+            JaMap node = nodes.pop();
+            int depth = depths.pop();
+            char label = labels.pop();
+
+            if (depth > 0) {
+                term.setLength(depth - 1);
+                term.append(label);
+                if (node.isLeaf()) {
+                    builder.add(term);
+                }
+            }
+
+            // Pushed in reverse order so the smallest character is popped first
+            char[] keys = node.sortedKeys();
+            for(int i = keys.length - 1; i >= 0; --i) {
+                nodes.push(node.get(keys[i]));
+                depths.push(depth + 1);
+                labels.push(keys[i]);
+            }
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Creates the minimal automaton of the given terms, without building a Trie first.
+     *
+     * @param sortedTerms The terms, in ascending order (the duplicates and the empty terms are ignored).
+     */
+    static JaDawgIndex build(Iterable<? extends CharSequence> sortedTerms) {
+        JaDawgBuilder builder = new JaDawgBuilder();
+        for(CharSequence term : sortedTerms) {
+            builder.add(term);
+        }
+        return builder.build();
+    }
+
+    int states() { return firstArc.length - 1; }
+
+    int arcs() { return labels.length; }
+
+    /**
+     * @return An estimation of the heap memory used by the automaton, in bytes.
+     */
+    @Override
+    public long memorySize() {
+        return 4 * 16 + 4L * firstArc.length + 2L * labels.length + 4L * targets.length + 8L * finals.length;
+    }
+
+    @Override
+    public int findSuggestions(String prefix, int maxResults, Consumer<? super CharSequence> sink) {
+        int local = root;
+        for(int i = 0; i < prefix.length() && local >= 0; ++i) {
+            local = target(local, prefix.charAt(i));
+        }
+
+        if (local < 0) {
+            return -1;
+        }
+
+        JaTraversal buff = JaTraversal.acquire();
+        buff.start(prefix);
+        int visited = 1, emitted = 0;
+        int top = -1;
+
+        try {
+            // The stack holds arcs
+            buff.ensureStack(firstArc[local + 1] - firstArc[local]);
+            int[] arcs = buff.ids;
+            int[] depths = buff.depths;
+
+            for(int arc = firstArc[local + 1] - 1; arc >= firstArc[local]; --arc) {
+                arcs[++top] = arc;
+                depths[top] = prefix.length() + 1;
+            }
+
+            while (top >= 0 && emitted < maxResults) {
+                int arc = arcs[top];
+                int depth = depths[top--];
+                int state = targets[arc];
+                visited++;
+
+                buff.ensureChars(depth);
+                buff.chars[depth - 1] = labels[arc];
+                if (isFinal(state)) {
+                    buff.length = depth;
+                    sink.accept(buff);
+                    emitted++;
+                }
+
+                int from = firstArc[state], to = firstArc[state + 1];
+                if (top + 1 + to - from > arcs.length) {
+                    buff.ensureStack(top + 1 + to - from);
+                    arcs = buff.ids;
+                    depths = buff.depths;
+                }
+                // Pushed in reverse order so the smallest label is popped first
+                for(int child = to - 1; child >= from; --child) {
+                    arcs[++top] = child;
+                    depths[top] = depth + 1;
+                }
+            }
+        } finally {
+            buff.release(-1);
+        }
+
+        return visited;
+    }
+
+    @Override
+    public void collectStats(JaSuggestStats.Collector collector) {
+        // Breadth-first from the root, so each state is counted once, at its shortest depth
+        int[] depths = new int[states()];
+        Arrays.fill(depths, -1);
+        int[] queue = new int[states()];
+        int head = 0, tail = 0;
+        queue[tail++] = root;
+        depths[root] = 0;
+
+        while (head < tail) {
+            int state = queue[head++];
+            int from = firstArc[state], to = firstArc[state + 1];
+            for(int arc = from; arc < to; ++arc) {
+                if (depths[targets[arc]] < 0) {
+                    depths[targets[arc]] = depths[state] + 1;
+                    queue[tail++] = targets[arc];
+                }
+            }
+            collector.node(depths[state], to - from, state != root && isFinal(state));
+        }
+    }
+
+    private boolean isFinal(int state) {
+        return (finals[state >>> 6] & (1L << state)) != 0;
+    }
+
+    /**
+     * Returns the state reached from the given state with the given label, or -1 if there is no such arc.
+     */
+    private int target(int state, char c) {
+        int low = firstArc[state], high = firstArc[state + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (labels[mid] < c) {
+                low = mid + 1;
+            } else if (labels[mid] > c) {
+                high = mid - 1;
+            } else {
+                return targets[mid];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Builds the minimal automaton incrementally from sorted terms (Daciuk et al., "Incremental Construction
+     * of Minimal Acyclic Finite-State Automata"). Only the path of the last term is mutable: when the next term
+     * leaves it, the nodes below the common prefix can't change anymore, so they are replaced, deepest first,
+     * by the equivalent registered state (or registered as new states). The memory needed besides the automaton
+     * is the register and the path of a single term.
+     */
+    private static final class JaDawgBuilder {
+
+        // The unique states, by their signature
+        private final Map<JaDawgSignature, Integer> register = new HashMap<>();
+
+        private int states = 0;
+        private int arcs = 0;
+        private int[] firstArc = new int[1024];
+        private char[] labels = new char[1024];
+        private int[] targets = new int[1024];
+        private long[] finals = new long[16];
+
+        // The last term, and the mutable nodes on its path: the node of its first 'd' characters is final
+        // if pathFinal[d], and has the (already registered) children pathLabels[d][i] -> pathTargets[d][i],
+        // for i < pathArcs[d], besides the node at d + 1
+        private char[] previous = new char[64];
+        private int previousLength = 0;
+        private boolean[] pathFinal = new boolean[65];
+        private char[][] pathLabels = new char[65][];
+        private int[][] pathTargets = new int[65][];
+        private int[] pathArcs = new int[65];
+
+        /**
+         * @throws IllegalArgumentException if the term is smaller than the previous one.
+         */
+        void add(CharSequence term) {
+            int length = term.length();
+            if (length == 0) {
+                return;
+            }
+
+            int common = 0;
+            while (common < Math.min(length, previousLength) && previous[common] == term.charAt(common)) {
+                common++;
+            }
+            if (common == length && common == previousLength) {
+                // The same term again
+                return;
+            }
+            if (common < previousLength && (common == length || term.charAt(common) < previous[common])) {
+                throw new IllegalArgumentException("The terms should be added in ascending order, '" + term + "' comes after '"
+                                                   + new String(previous, 0, previousLength) + "'.");
+            }
+
+            replaceOrRegister(common);
+
+            if (previous.length < length) {
+                int capacity = Math.max(previous.length * 2, length);
+                previous = Arrays.copyOf(previous, capacity);
+                pathFinal = Arrays.copyOf(pathFinal, capacity + 1);
+                pathLabels = Arrays.copyOf(pathLabels, capacity + 1);
+                pathTargets = Arrays.copyOf(pathTargets, capacity + 1);
+                pathArcs = Arrays.copyOf(pathArcs, capacity + 1);
+            }
+            for(int d = common + 1; d <= length; ++d) {
+                pathFinal[d] = false;
+                pathArcs[d] = 0;
+                previous[d - 1] = term.charAt(d - 1);
+            }
+            pathFinal[length] = true;
+            previousLength = length;
+        }
+
+        JaDawgIndex build() {
+            replaceOrRegister(0);
+            int root = register(pathFinal[0], pathLabels[0], pathTargets[0], pathArcs[0]);
+
+            firstArc[states] = arcs;
+            return new JaDawgIndex(root,
+                                   Arrays.copyOf(firstArc, states + 1),
+                                   Arrays.copyOf(labels, arcs),
+                                   Arrays.copyOf(targets, arcs),
+                                   Arrays.copyOf(finals, (states + 63) >>> 6));
+        }
+
+        /**
+         * Registers the nodes of the path deeper than 'depth', the deepest first,
+         * each one becoming an arc of its parent.
+         */
+        private void replaceOrRegister(int depth) {
+            for(int d = previousLength; d > depth; --d) {
+                int state = register(pathFinal[d], pathLabels[d], pathTargets[d], pathArcs[d]);
+                addArc(d - 1, previous[d - 1], state);
+            }
+            previousLength = depth;
+        }
+
+        private void addArc(int depth, char label, int target) {
+            int count = pathArcs[depth];
+            if (pathLabels[depth] == null) {
+                pathLabels[depth] = new char[4];
+                pathTargets[depth] = new int[4];
+            } else if (count == pathLabels[depth].length) {
+                pathLabels[depth] = Arrays.copyOf(pathLabels[depth], count * 2);
+                pathTargets[depth] = Arrays.copyOf(pathTargets[depth], count * 2);
+            }
+            pathLabels[depth][count] = label;
+            pathTargets[depth][count] = target;
+            pathArcs[depth] = count + 1;
+        }
+
+        /**
+         * @return The registered state equivalent to the node, or a new state.
+         */
+        private int register(boolean isFinal, char[] nodeLabels, int[] nodeTargets, int count) {
+            char[] keys = (count == 0) ? new char[0] : Arrays.copyOf(nodeLabels, count);
+            int[] children = (count == 0) ? new int[0] : Arrays.copyOf(nodeTargets, count);
+
+            JaDawgSignature signature = new JaDawgSignature(isFinal, keys, children);
+            Integer state = register.get(signature);
+            if (state != null) {
+                return state;
+            }
+
+            state = states++;
+            if (states >= firstArc.length) {
+                firstArc = Arrays.copyOf(firstArc, firstArc.length * 2);
+            }
+            if ((state >>> 6) >= finals.length) {
+                finals = Arrays.copyOf(finals, finals.length * 2);
+            }
+            if (arcs + count > labels.length) {
+                int capacity = Math.max(labels.length * 2, arcs + count);
+                labels = Arrays.copyOf(labels, capacity);
+                targets = Arrays.copyOf(targets, capacity);
+            }
+
+            firstArc[state] = arcs;
+            System.arraycopy(keys, 0, labels, arcs, count);
+            System.arraycopy(children, 0, targets, arcs, count);
+            arcs += count;
+            if (isFinal) {
+                finals[state >>> 6] |= 1L << state;
+            }
+
+            register.put(signature, state);
+            return state;
+        }
+    }
+
+    /**
+     * Identifies a state by its finality and its arcs (the targets being already minimized states).
+     */
+    private static final class JaDawgSignature {
+
+        private final boolean isFinal;
+        private final char[] labels;
+        private final int[] targets;
+        private final int hash;
+
+        JaDawgSignature(boolean isFinal, char[] labels, int[] targets) {
+            this.isFinal = isFinal;
+            this.labels = labels;
+            this.targets = targets;
+            this.hash = 31 * (31 * Boolean.hashCode(isFinal) + Arrays.hashCode(labels)) + Arrays.hashCode(targets);
+        }
+
+        @Override
+        public int hashCode() { return hash; }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof JaDawgSignature)) {
+                return false;
+            }
+            JaDawgSignature other = (JaDawgSignature) o;
+            return hash == other.hash && isFinal == other.isFinal
+                    && Arrays.equals(labels, other.labels) && Arrays.equals(targets, other.targets);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import lombok.NonNull;
+import net.jodah.expiringmap.ExpiringMap;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * A JaCache on top of an ExpiringMap: the number of entries is bounded, and they expire as set by a JaCacheConfig.
+ */
+public class JaExpiringCache implements JaCache {
+
+    private final ExpiringMap<JaCacheKey, List<String>> map;
+    // Called by a single expiration listener of the map, registered with the first one
+    private final CopyOnWriteArrayList<Consumer<JaCacheKey>> evictionListeners = new CopyOnWriteArrayList<>();
+
+    public JaExpiringCache(@NonNull JaCacheConfig config) {
+        this.map = ExpiringMap.builder()
+                              .maxSize(config.getMaxSize())
+                              .expirationPolicy(config.getExpirationPolicy())
+                              .expiration(config.getExpiration(), config.getExpirationUnit())
+                              .build();
+    }
+
+    @Override
+    public List<String> get(JaCacheKey key) { return map.get(key); }
+
+    @Override
+    public void put(JaCacheKey key, List<String> value) { map.put(key, value); }
+
+    @Override
+    public void remove(JaCacheKey key) { map.remove(key); }
+
+    @Override
+    public int size() { return map.size(); }
+
+    @Override
+    public Map<JaCacheKey, List<String>> snapshot() { return new HashMap<>(map); }
+
+    /**
+     * The listener is called for the expired entries, and for the ones evicted because of 'maxSize'.
+     */
+    @Override
+    public synchronized void addEvictionListener(@NonNull Consumer<JaCacheKey> listener) {
+        if (evictionListeners.isEmpty()) {
+            map.addExpirationListener((key, value) -> evictionListeners.forEach(l -> l.accept(key)));
+        }
+        evictionListeners.addIfAbsent(listener);
+    }
+}
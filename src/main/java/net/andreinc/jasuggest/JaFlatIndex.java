@@ -0,0 +1,190 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.function.Consumer;
+
+/**
+ * A Trie stored as a flat sequence of nodes.
+ *
+ * The nodes are numbered in breadth-first order with the children of each node visited in ascending
+ * character order. This way the children of a node occupy a contiguous range of ids, sorted by their label,
+ * and can be located with a binary search:
+ *
+ * - label(i) is the character on the edge leading to node i (node 0 is the root);
+ * - the children of node i are the nodes firstChild(i) ... firstChild(i + 1) - 1;
+ * - isLeaf(i) is true if node i marks the end of a term.
+ *
+ * The way the nodes are stored (arrays on the heap, a memory mapped file) is left to the subclasses.
+ */
+abstract class JaFlatIndex implements JaIndex {
+
+    static final int MAGIC = 0x4A415347; // "JASG"
+    static final int VERSION = 1;
+    static final int FLAG_IGNORE_CASE = 1;
+    static final int HEADER_SIZE = 16;
+
+    abstract int size();
+
+    abstract char label(int node);
+
+    abstract int firstChild(int node);
+
+    abstract boolean isLeaf(int node);
+
+    @Override
+    public void collectStats(JaSuggestStats.Collector collector) {
+        // The nodes are in breadth-first order, so the depth of a node is known before its children are visited
+        int[] depths = new int[size()];
+        for(int node = 0; node < size(); ++node) {
+            int from = firstChild(node), to = firstChild(node + 1);
+            for(int child = from; child < to; ++child) {
+                depths[child] = depths[node] + 1;
+            }
+            collector.node(depths[node], to - from, node > 0 && isLeaf(node));
+        }
+    }
+
+    @Override
+    public int findSuggestions(String prefix, int maxResults, Consumer<? super CharSequence> sink) {
+        int local = locate(prefix);
+
+        if (local < 0) {
+            return -1;
+        }
+
+        int visited = 0, emitted = 0;
+
+        JaTraversal buff = JaTraversal.acquire();
+        buff.start(prefix);
+        int top = 0;
+
+        buff.ids[0] = local;
+        buff.depths[0] = prefix.length();
+
+        try {
+            while (top >= 0 && emitted < maxResults) {
+                int node = buff.ids[top];
+                int depth = buff.depths[top--];
+                visited++;
+
+                if (depth > prefix.length()) {
+                    buff.ensureChars(depth);
+                    buff.chars[depth - 1] = label(node);
+                    if (isLeaf(node)) {
+                        buff.length = depth;
+                        sink.accept(buff);
+                        emitted++;
+                    }
+                }
+
+                int from = firstChild(node), to = firstChild(node + 1);
+                buff.ensureStack(top + 1 + to - from);
+                // Pushed in reverse order so the smallest character is popped first
+                for(int child = to - 1; child >= from; --child) {
+                    buff.ids[++top] = child;
+                    buff.depths[top] = depth + 1;
+                }
+            }
+        } finally {
+            buff.release(-1);
+        }
+
+        return visited;
+    }
+
+    int locate(String prefix) {
+        int node = 0;
+        for(int i = 0; i < prefix.length() && node >= 0; ++i) {
+            node = child(node, prefix.charAt(i));
+        }
+        return node;
+    }
+
+    /**
+     * Returns the child of the node having the given label, or -1 if it doesn't exist.
+     */
+    int child(int node, char c) {
+        int low = firstChild(node), high = firstChild(node + 1) - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char midChar = label(mid);
+            if (midChar < c) {
+                low = mid + 1;
+            } else if (midChar > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Writes the index in the binary format read by JaMappedIndex (all the values are big-endian):
+     *
+     * - a header: MAGIC, VERSION, flags and the number of nodes (n), as ints;
+     * - firstChild: n + 1 ints;
+     * - padding up to a multiple of 8 bytes;
+     * - the leaf bitset: (n + 63) / 64 longs;
+     * - the labels: n chars.
+     */
+    void writeTo(OutputStream outputStream, boolean ignoreCase) throws IOException {
+        int size = size();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(ignoreCase ? FLAG_IGNORE_CASE : 0);
+        out.writeInt(size);
+
+        for(int i = 0; i <= size; ++i) {
+            out.writeInt(firstChild(i));
+        }
+        if (leavesOffset(size) != HEADER_SIZE + 4L * (size + 1)) {
+            out.writeInt(0);
+        }
+
+        for(int word = 0; word < (size + 63) >>> 6; ++word) {
+            long bits = 0;
+            for(int bit = 0; bit < 64 && (word << 6) + bit < size; ++bit) {
+                if (isLeaf((word << 6) + bit)) {
+                    bits |= 1L << bit;
+                }
+            }
+            out.writeLong(bits);
+        }
+
+        for(int i = 0; i < size; ++i) {
+            out.writeChar(label(i));
+        }
+
+        out.flush();
+    }
+
+    static long leavesOffset(int size) {
+        return (HEADER_SIZE + 4L * (size + 1) + 7) & ~7L;
+    }
+
+    static long labelsOffset(int size) {
+        return leavesOffset(size) + 8L * ((size + 63) >>> 6);
+    }
+}
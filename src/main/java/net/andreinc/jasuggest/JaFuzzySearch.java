@@ -0,0 +1,163 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Finds the terms having a prefix within a given edit distance of a query.
+ *
+ * The distance is the optimal string alignment distance: insertions, deletions, substitutions and transpositions
+ * of adjacent characters cost one edit each ("uesful" is one edit away from "useful").
+ *
+ * The Trie is traversed once, computing a row of the edit distance matrix for each visited node from the row
+ * of its parent. The row of a node gives the distance between the node's prefix and every prefix of the query,
+ * so a branch is abandoned as soon as all the values of its row exceed the edit budget.
+ */
+final class JaFuzzySearch {
+
+    private static final Comparator<JaFuzzyMatch> BEST_FIRST =
+            Comparator.comparingInt(JaFuzzyMatch::getDistance).thenComparing(JaFuzzyMatch::getTerm);
+
+    private JaFuzzySearch() {}
+
+    /**
+     * Returns the 'k' terms closest to the query: ordered by distance, then alphabetically.
+     * The distance of a term is the smallest distance between the query and a prefix of the term.
+     * The query itself is excluded.
+     */
+    static List<String> find(JaMap root, String query, int maxEdits, int k) {
+        int m = query.length();
+
+        // The worst match is on top, so it can be replaced when a better one is found
+        PriorityQueue<JaFuzzyMatch> best = new PriorityQueue<>(BEST_FIRST.reversed());
+        Deque<JaFuzzyFrame> stack = new ArrayDeque<>();
+
+        int[] firstRow = new int[m + 1];
+        for(int j = 0; j <= m; ++j) {
+            firstRow[j] = j;
+        }
+        pushChildren(stack, new JaFuzzyFrame(root, "", firstRow, null, m), query);
+
+        while (!stack.isEmpty()) {
+            JaFuzzyFrame frame = stack.pop();
+
+            if (best.size() == k && best.peek().getDistance() <= frame.lowerBound()) {
+                // Nothing below this node can replace the current matches
+                // (for equal distances the terms visited later are alphabetically bigger)
+                continue;
+            }
+
+            if (frame.node.isLeaf() && frame.distance <= maxEdits && !frame.term.equals(query)) {
+                best.add(new JaFuzzyMatch(frame.term, frame.distance));
+                if (best.size() > k) {
+                    best.poll();
+                }
+            }
+
+            if (frame.lowerBound() <= maxEdits) {
+                pushChildren(stack, frame, query);
+            }
+        }
+
+        List<JaFuzzyMatch> matches = new ArrayList<>(best);
+        matches.sort(BEST_FIRST);
+
+        List<String> list = new ArrayList<>(matches.size());
+        for(JaFuzzyMatch match : matches) {
+            list.add(match.getTerm());
+        }
+        return list;
+    }
+
+    private static void pushChildren(Deque<JaFuzzyFrame> stack, JaFuzzyFrame parent, String query) {
+        char[] keys = parent.node.sortedKeys();
+        // Pushed in reverse order so the smallest character is popped first
+        for(int i = keys.length - 1; i >= 0; --i) {
+            char c = keys[i];
+            int[] row = nextRow(parent, c, query);
+            stack.push(new JaFuzzyFrame(parent.node.get(c), parent.term + c, row, parent.row,
+                                        Math.min(parent.distance, row[query.length()])));
+        }
+    }
+
+    private static int[] nextRow(JaFuzzyFrame parent, char c, String query) {
+        int[] previous = parent.row;
+        int[] row = new int[previous.length];
+        row[0] = previous[0] + 1;
+
+        for(int j = 1; j < row.length; ++j) {
+            int cost = (query.charAt(j - 1) == c) ? 0 : 1;
+            row[j] = Math.min(Math.min(row[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+
+            // Transposition of the last two characters
+            if (j > 1 && parent.parentRow != null && query.charAt(j - 2) == c
+                    && query.charAt(j - 1) == parent.term.charAt(parent.term.length() - 1)) {
+                row[j] = Math.min(row[j], parent.parentRow[j - 2] + 1);
+            }
+        }
+
+        return row;
+    }
+
+    private static final class JaFuzzyFrame {
+
+        final JaMap node;
+        final String term;
+        final int[] row;
+        final int[] parentRow;
+        // The smallest distance between the query and a prefix of the term
+        final int distance;
+
+        JaFuzzyFrame(JaMap node, String term, int[] row, int[] parentRow, int distance) {
+            this.node = node;
+            this.term = term;
+            this.row = row;
+            this.parentRow = parentRow;
+            this.distance = distance;
+        }
+
+        /**
+         * The smallest distance a term in the sub-trie of this node can have.
+         * The rows below are computed from this row and (for transpositions) the parent row,
+         * so their values can't be smaller than the minimum of both.
+         */
+        int lowerBound() {
+            int min = Math.min(distance, min(row));
+            return (parentRow == null) ? min : Math.min(min, min(parentRow));
+        }
+
+        private static int min(int[] values) {
+            int min = Integer.MAX_VALUE;
+            for(int value : values) {
+                min = Math.min(min, value);
+            }
+            return min;
+        }
+    }
+}
+
+@lombok.Value
+class JaFuzzyMatch {
+    private String term;
+    private int distance;
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A read-only index that answers prefix completion queries.
+ * Implemented by the frozen alternatives of the default HashMap based Trie.
+ */
+interface JaIndex {
+
+    /**
+     * Passes to the sink the terms starting with the given prefix (excluding the prefix itself),
+     * in ascending order, stopping after 'maxResults' terms.
+     * The CharSequence may be a view over a reused buffer, only valid until the sink returns.
+     *
+     * @return The number of nodes visited under the prefix, or -1 if the prefix is not present in the index.
+     */
+    int findSuggestions(String prefix, int maxResults, Consumer<? super CharSequence> sink);
+
+    /**
+     * Adds to the list the terms starting with the given prefix (excluding the prefix itself),
+     * in ascending order, stopping after 'maxResults' terms.
+     *
+     * @return The number of nodes visited under the prefix, or -1 if the prefix is not present in the index.
+     */
+    default int findSuggestions(String prefix, int maxResults, List<String> list) {
+        return findSuggestions(prefix, maxResults, term -> list.add(term.toString()));
+    }
+
+    /**
+     * @return An estimation of the heap memory used by the index, in bytes.
+     */
+    long memorySize();
+
+    /**
+     * Passes every node of the index to the collector, with its depth and its number of children.
+     */
+    void collectStats(JaSuggestStats.Collector collector);
+}
@@ -0,0 +1,306 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * A suffix array over all the terms, answering substring (infix) queries with two binary searches.
+ *
+ * The terms are sorted, then concatenated in a single char[] where each term is followed by a separator.
+ * The suffix array holds the positions of all the suffixes that start inside a term, sorted lexicographically
+ * (a suffix ends at the separator of its term). All the suffixes starting with a given fragment are then
+ * adjacent in the array. The terms cannot contain the separator (the character 0).
+ */
+final class JaInfixIndex {
+
+    private static final char SEPARATOR = '\u0000';
+    private static final int INSERTION_SORT_THRESHOLD = 16;
+    // The characters of the terms find() may read per matching suffix before it goes through the matches instead
+    private static final int SCAN_BUDGET_PER_MATCH = 8;
+
+    // The version of the Trie the index was built from
+    private final long version;
+    private final char[] text;
+    // The start of each term in 'text', in ascending order (the ids of the terms are sorted alphabetically)
+    private final int[] termStarts;
+    private final int[] suffixes;
+
+    private JaInfixIndex(long version, char[] text, int[] termStarts, int[] suffixes) {
+        this.version = version;
+        this.text = text;
+        this.termStarts = termStarts;
+        this.suffixes = suffixes;
+    }
+
+    /**
+     * @param version The version of the Trie the terms come from.
+     * @param terms The (distinct) terms, in ascending order. Empty terms are ignored.
+     *
+     * @throws IllegalArgumentException If a term contains the separator.
+     */
+    static JaInfixIndex build(long version, List<String> terms) {
+        int length = 0;
+        int count = 0;
+        for(String term : terms) {
+            checkTerm(term);
+            if (!term.isEmpty()) {
+                length += term.length() + 1;
+                count++;
+            }
+        }
+
+        char[] text = new char[length];
+        int[] termStarts = new int[count];
+        int[] suffixes = new int[length - count];
+
+        int position = 0, t = 0, s = 0;
+        for(String term : terms) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            termStarts[t++] = position;
+            for(int i = 0; i < term.length(); ++i) {
+                suffixes[s++] = position;
+                text[position++] = term.charAt(i);
+            }
+            text[position++] = SEPARATOR;
+        }
+
+        sort(text, suffixes, 0, suffixes.length, 0);
+
+        return new JaInfixIndex(version, text, termStarts, suffixes);
+    }
+
+    static void checkTerm(String term) {
+        if (term.indexOf(SEPARATOR) >= 0) {
+            throw new IllegalArgumentException("The terms of an infix index cannot contain the character '\\u0000'.");
+        }
+    }
+
+    /**
+     * Returns the first 'k' terms (alphabetically) containing the fragment, except the fragment itself.
+     * The matching suffixes are located in O(log n). When there are many of them (eg.: a fragment of 1-2 characters)
+     * the terms are first scanned in alphabetical order, stopping at the k-th match. If that reads more than
+     * SCAN_BUDGET_PER_MATCH characters per matching suffix, each match is offered to a set of the 'k' smallest
+     * term ids instead, in O(matches * log k). Either way the matches are never sorted.
+     */
+    List<String> find(String fragment, int k) {
+        List<String> list = new ArrayList<>();
+
+        if (fragment.isEmpty()) {
+            // Every term contains the empty fragment, no need to search
+            for(int i = 0; i < termStarts.length && list.size() < k; ++i) {
+                list.add(term(i));
+            }
+            return list;
+        }
+
+        int from = bound(fragment, false);
+        int to = bound(fragment, true);
+
+        if (to - from > k && scanTerms(fragment, k, (long) (to - from) * SCAN_BUDGET_PER_MATCH, list)) {
+            return list;
+        }
+        list.clear();
+
+        // The smallest ids seen so far. A term can contain the fragment more than once, the set keeps it once.
+        TreeSet<Integer> ids = new TreeSet<>();
+        for(int i = from; i < to; ++i) {
+            int position = suffixes[i];
+            int id = termOf(position);
+            if (position == termStarts[id] && text[position + fragment.length()] == SEPARATOR) {
+                // The term is the fragment itself
+                continue;
+            }
+            if (ids.size() < k) {
+                ids.add(id);
+            } else if (id < ids.last() && ids.add(id)) {
+                ids.pollLast();
+            }
+        }
+
+        for(int id : ids) {
+            list.add(term(id));
+        }
+
+        return list;
+    }
+
+    /**
+     * Adds to the list the first 'k' terms containing the fragment (except the fragment itself), reading the terms
+     * in alphabetical order.
+     *
+     * @return false if more than 'budget' characters had to be read, the list is then incomplete.
+     */
+    private boolean scanTerms(String fragment, int k, long budget, List<String> list) {
+        int length = fragment.length();
+        char first = fragment.charAt(0);
+        for(int id = 0; id < termStarts.length && list.size() < k; ++id) {
+            int start = termStarts[id];
+            int end = (id + 1 < termStarts.length) ? termStarts[id + 1] - 1 : text.length - 1;
+            budget -= end - start + 1;
+            if (budget < 0) {
+                return false;
+            }
+            if (end - start == length && compareToFragment(start, fragment) == 0) {
+                // The term is the fragment itself
+                continue;
+            }
+            for(int i = start; i + length <= end; ++i) {
+                if (text[i] == first && compareToFragment(i, fragment) == 0) {
+                    list.add(new String(text, start, end - start));
+                    break;
+                }
+            }
+        }
+        return true;
+    }
+
+    long version() { return version; }
+
+    int termCount() { return termStarts.length; }
+
+    /**
+     * @return An estimation of the heap memory used by the index, in bytes.
+     */
+    long memorySize() {
+        return JaSuggestStats.arrayBytes(text.length, 2) + JaSuggestStats.arrayBytes(termStarts.length, 4)
+               + JaSuggestStats.arrayBytes(suffixes.length, 4);
+    }
+
+    /**
+     * The index of the first suffix greater or equal to the fragment (or greater, when 'upper' is true),
+     * considering only the first fragment.length() characters of each suffix.
+     */
+    private int bound(String fragment, boolean upper) {
+        int lo = 0, hi = suffixes.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareToFragment(suffixes[mid], fragment);
+            if (cmp < 0 || (upper && cmp == 0)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private int compareToFragment(int position, String fragment) {
+        for(int i = 0; i < fragment.length(); ++i) {
+            int c = charAt(text, position, i);
+            int f = fragment.charAt(i);
+            if (c != f) {
+                return (c < f) ? -1 : 1;
+            }
+        }
+        return 0;
+    }
+
+    private int termOf(int position) {
+        int i = Arrays.binarySearch(termStarts, position);
+        return (i >= 0) ? i : -i - 2;
+    }
+
+    private String term(int id) {
+        int start = termStarts[id];
+        int end = start;
+        while (text[end] != SEPARATOR) {
+            end++;
+        }
+        return new String(text, start, end - start);
+    }
+
+    /**
+     * The character at the given depth of a suffix, or -1 when the suffix ended.
+     */
+    private static int charAt(char[] text, int position, int depth) {
+        char c = text[position + depth];
+        return (c == SEPARATOR) ? -1 : c;
+    }
+
+    /**
+     * Multikey (three-way radix) quicksort of the suffixes in [lo, hi), knowing they share their first 'depth' characters.
+     */
+    private static void sort(char[] text, int[] suffixes, int lo, int hi, int depth) {
+        while (hi - lo > INSERTION_SORT_THRESHOLD) {
+            int pivot = charAt(text, suffixes[(lo + hi) >>> 1], depth);
+            int lt = lo, gt = hi - 1, i = lo;
+            while (i <= gt) {
+                int c = charAt(text, suffixes[i], depth);
+                if (c < pivot) {
+                    swap(suffixes, lt++, i++);
+                } else if (c > pivot) {
+                    swap(suffixes, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+
+            // [lo, lt) and (gt, hi) are sorted at the same depth, [lt, gt] at the next one, unless the suffixes
+            // in it all ended (so they are equal). The two smaller ranges are sorted recursively and the largest
+            // one by the next iteration, so the recursion depth is at most log2(hi - lo).
+            int lower = lt - lo, upper = hi - gt - 1, middle = (pivot < 0) ? 0 : gt + 1 - lt;
+            if (pivot >= 0 && middle >= lower && middle >= upper) {
+                sort(text, suffixes, lo, lt, depth);
+                sort(text, suffixes, gt + 1, hi, depth);
+                lo = lt;
+                hi = gt + 1;
+                depth++;
+            } else if (lower >= upper) {
+                sort(text, suffixes, gt + 1, hi, depth);
+                if (middle > 0) {
+                    sort(text, suffixes, lt, gt + 1, depth + 1);
+                }
+                hi = lt;
+            } else {
+                sort(text, suffixes, lo, lt, depth);
+                if (middle > 0) {
+                    sort(text, suffixes, lt, gt + 1, depth + 1);
+                }
+                lo = gt + 1;
+            }
+        }
+
+        for(int i = lo + 1; i < hi; ++i) {
+            for(int j = i; j > lo && compare(text, suffixes[j], suffixes[j - 1], depth) < 0; --j) {
+                swap(suffixes, j, j - 1);
+            }
+        }
+    }
+
+    private static int compare(char[] text, int p1, int p2, int depth) {
+        while (true) {
+            int c1 = charAt(text, p1, depth);
+            int c2 = charAt(text, p2, depth);
+            if (c1 != c2 || c1 < 0) {
+                return c1 - c2;
+            }
+            depth++;
+        }
+    }
+
+    private static void swap(int[] array, int i, int j) {
+        int tmp = array[i];
+        array[i] = array[j];
+        array[j] = tmp;
+    }
+}
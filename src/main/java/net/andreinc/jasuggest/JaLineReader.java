@@ -0,0 +1,136 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Reads the lines of a Reader in a reused buffer, without creating a String per line.
+ * The lines end with '\n', '\r' or "\r\n". A byte order mark at the start is skipped.
+ *
+ * It's the CharSequence of the current line, valid until the next call of next().
+ */
+final class JaLineReader implements CharSequence {
+
+    private final Reader reader;
+    private final char[] buffer = new char[8192];
+    private int position = 0;
+    private int limit = 0;
+
+    private char[] line = new char[64];
+    private int length = 0;
+
+    private boolean first = true;
+    // The previous line ended with '\r', so a following '\n' is part of the same line break
+    private boolean skipLf = false;
+
+    JaLineReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Reads the next line.
+     *
+     * @return false if the end of the input was reached.
+     */
+    boolean next() throws IOException {
+        length = 0;
+        boolean read = false;
+
+        while (true) {
+            if (position == limit) {
+                limit = reader.read(buffer, 0, buffer.length);
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return read;
+                }
+            }
+            if (first) {
+                first = false;
+                if (buffer[position] == '\uFEFF') {
+                    position++;
+                    continue;
+                }
+            }
+            if (skipLf) {
+                skipLf = false;
+                if (buffer[position] == '\n') {
+                    position++;
+                    continue;
+                }
+            }
+
+            read = true;
+            int start = position;
+            while (position < limit && buffer[position] != '\n' && buffer[position] != '\r') {
+                position++;
+            }
+            append(start, position);
+
+            if (position < limit) {
+                skipLf = buffer[position++] == '\r';
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return true if the line has only ASCII characters without upper case letters, so it doesn't change when lower cased.
+     */
+    boolean isLowerCaseAscii() {
+        for(int i = 0; i < length; ++i) {
+            char c = line[i];
+            if (c > 0x7F || (c >= 'A' && c <= 'Z')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void append(int from, int to) {
+        if (line.length < length + to - from) {
+            line = Arrays.copyOf(line, Math.max(line.length * 2, length + to - from));
+        }
+        System.arraycopy(buffer, from, line, length, to - from);
+        length += to - from;
+    }
+
+    @Override
+    public int length() { return length; }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+        }
+        return line[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + length);
+        }
+        return new String(line, start, end - start);
+    }
+
+    @Override
+    public String toString() { return new String(line, 0, length); }
+}
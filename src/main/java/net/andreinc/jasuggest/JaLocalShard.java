@@ -0,0 +1,40 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.util.List;
+
+/**
+ * A JaSuggestShard backed by a JaSuggest living in the same JVM.
+ */
+public class JaLocalShard implements JaSuggestShard {
+
+    @Getter
+    private final JaSuggest jaSuggest;
+
+    public JaLocalShard(@NonNull JaSuggest jaSuggest) {
+        this.jaSuggest = jaSuggest;
+    }
+
+    @Override
+    public List<String> findSuggestions(String prefix, int maxResults) {
+        return jaSuggest.findSuggestions(prefix, maxResults);
+    }
+}
@@ -0,0 +1,229 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+@ToString(exclude = { "sortedKeys" })
+@NoArgsConstructor
+class JaMap extends HashMap<Character, JaMap> {
+
+    private static final long serialVersionUID = 1L;
+
+    @Getter @Setter private boolean isLeaf;
+    // The id of the term in the JaTermDictionary, for the leaves of a 'prebuiltWords' Trie
+    @Getter @Setter private int termId = -1;
+
+    // Computed by the first sortedKeys() call, reset when a child is added or removed
+    private volatile char[] sortedKeys;
+
+    /**
+     * Creates a shallow copy of the node: the children are shared.
+     */
+    JaMap(JaMap node) {
+        super(node);
+        this.isLeaf = node.isLeaf;
+        this.termId = node.termId;
+    }
+
+    /**
+     * Creates a new empty node of the same kind, for a child.
+     */
+    JaMap newNode() {
+        return new JaMap();
+    }
+
+    /**
+     * Creates a shallow copy of the node, of the same kind.
+     */
+    JaMap copy() {
+        return new JaMap(this);
+    }
+
+    /**
+     * The plain nodes don't keep the weights and the categories (see JaAnnotatedMap): all the weights are 0
+     * and there are no categories.
+     */
+    public long getWeight() { return 0; }
+
+    public long getMaxWeight() { return 0; }
+
+    public long[] getTermCategories() { return null; }
+
+    public long[] getCategories() { return null; }
+
+    /**
+     * Marks the node as the end of a term with the given weight. If it already was, the biggest weight is kept.
+     */
+    void markLeaf(long weight) {
+        this.isLeaf = true;
+    }
+
+    /**
+     * Raises the maximum weight of the sub-trie to the given weight, if it is bigger.
+     */
+    void updateMaxWeight(long weight) {
+    }
+
+    /**
+     * Removes the end of term mark, with everything known about the term.
+     */
+    void unmarkLeaf() {
+        this.isLeaf = false;
+        this.termId = -1;
+    }
+
+    /**
+     * Recomputes what the node knows about its sub-trie (the maximum weight, the categories) from its children.
+     */
+    void refresh() {
+    }
+
+    protected boolean containsTerm(String term) {
+        JaMap current = this;
+        for(int i = 0; i < term.length() && current != null; ++i) {
+            current = current.get(term.charAt(i));
+        }
+        return current != null && current.isLeaf();
+    }
+
+    /**
+     * Returns a new version of the Trie (this being the root) that also contains the given term.
+     * Only the nodes on the path of the term are copied, the others are shared. This Trie is not modified.
+     * If the dictionary is not null and the term is new, the term is added to it.
+     */
+    protected JaMap withTerm(String term, long weight, JaTermDictionary dictionary) {
+        JaMap root = copy();
+        JaMap current = root;
+
+        current.updateMaxWeight(weight);
+
+        for(int i = 0; i < term.length(); i++) {
+            JaMap child = current.get(term.charAt(i));
+            child = (child == null) ? current.newNode() : child.copy();
+            current.put(term.charAt(i), child);
+            current = child;
+            current.updateMaxWeight(weight);
+        }
+
+        if (dictionary != null && !current.isLeaf()) {
+            current.setTermId(dictionary.add(term));
+        }
+        current.markLeaf(weight);
+
+        return root;
+    }
+
+    /**
+     * Returns a new version of the Trie (this being the root) without the given term, which must exist.
+     * The nodes left without terms in their sub-trie are removed, and the maximum weights on the path are recomputed.
+     * Only the nodes on the path of the term are copied, the others are shared. This Trie is not modified.
+     */
+    protected JaMap withoutTerm(String term) {
+        JaMap[] path = new JaMap[term.length() + 1];
+        path[0] = this;
+        for(int i = 0; i < term.length(); ++i) {
+            path[i + 1] = path[i].get(term.charAt(i));
+        }
+
+        JaMap child = null;
+        for(int i = term.length(); i >= 0; --i) {
+            JaMap copy = path[i].copy();
+
+            if (i == term.length()) {
+                copy.unmarkLeaf();
+            } else if (child == null) {
+                copy.remove(term.charAt(i));
+            } else {
+                copy.put(term.charAt(i), child);
+            }
+            copy.refresh();
+
+            child = (i > 0 && copy.isEmpty() && !copy.isLeaf()) ? null : copy;
+        }
+
+        return child;
+    }
+
+    /**
+     * An estimation of the heap memory of the node, with its HashMap table and entries (without the children
+     * and the categories, which are shared).
+     */
+    long memorySize() {
+        // The fields of HashMap and JaMap
+        long bytes = JaSuggestStats.align(44 + 9);
+        if (!isEmpty()) {
+            int capacity = 16;
+            while (size() > capacity * 3 / 4) {
+                capacity *= 2;
+            }
+            // The table and a HashMap.Node per child; the Characters above 127 are not cached
+            bytes += JaSuggestStats.arrayBytes(capacity, 4) + 32L * size();
+            long[] boxed = new long[1];
+            forEach((c, child) -> boxed[0] += (c > 127) ? 16 : 0);
+            bytes += boxed[0];
+        }
+        char[] keys = sortedKeys;
+        if (keys != null) {
+            // The array and the keySet() view used to compute it
+            bytes += JaSuggestStats.arrayBytes(keys.length, 2) + 16;
+        }
+        return bytes;
+    }
+
+    /**
+     * Adds or replaces a child, and resets the cached sortedKeys().
+     */
+    @Override
+    public JaMap put(Character key, JaMap value) {
+        sortedKeys = null;
+        return super.put(key, value);
+    }
+
+    /**
+     * Removes a child, and resets the cached sortedKeys().
+     */
+    @Override
+    public JaMap remove(Object key) {
+        sortedKeys = null;
+        return super.remove(key);
+    }
+
+    /**
+     * Returns the characters leading to the child nodes, in ascending order. The array is computed by the first call
+     * and shared until put() or remove() changes the children, so it shouldn't be modified.
+     */
+    protected char[] sortedKeys() {
+        char[] keys = sortedKeys;
+        if (keys == null) {
+            keys = new char[size()];
+            int i = 0;
+            for(Character c : keySet()) {
+                keys[i++] = c;
+            }
+            Arrays.sort(keys);
+            sortedKeys = keys;
+        }
+        return keys;
+    }
+}
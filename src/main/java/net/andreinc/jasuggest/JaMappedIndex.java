@@ -0,0 +1,98 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * A compact Trie that is read directly from a memory mapped index file (see JaFlatIndex.writeTo()).
+ *
+ * Nothing is deserialized when the file is opened: the queries read the mapped pages, so opening the index
+ * takes constant time and multiple JVMs using the same file share the OS page cache.
+ */
+final class JaMappedIndex extends JaFlatIndex {
+
+    private final ByteBuffer buffer;
+    private final int size;
+    private final boolean ignoreCase;
+    private final int leavesOffset;
+    private final int labelsOffset;
+
+    private JaMappedIndex(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a JaSuggest index file.");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported JaSuggest index file version: " + buffer.getInt(4) + ".");
+        }
+
+        this.buffer = buffer;
+        this.ignoreCase = (buffer.getInt(8) & FLAG_IGNORE_CASE) != 0;
+        this.size = buffer.getInt(12);
+        this.leavesOffset = (int) leavesOffset(size);
+        this.labelsOffset = (int) labelsOffset(size);
+
+        if (buffer.capacity() != labelsOffset + 2L * size) {
+            throw new IllegalArgumentException("Truncated or corrupted JaSuggest index file.");
+        }
+    }
+
+    /**
+     * Maps the given index file in memory (read-only).
+     * The mapping stays valid after the channel is closed.
+     */
+    static JaMappedIndex open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Index files bigger than 2GB are not supported.");
+            }
+            return new JaMappedIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    boolean isIgnoreCase() { return ignoreCase; }
+
+    @Override
+    int size() { return size; }
+
+    /**
+     * The pages of the file are mapped outside the heap, only the objects pointing to them are counted.
+     */
+    @Override
+    public long memorySize() { return 96; }
+
+    /**
+     * @return The size of the mapped file, in bytes.
+     */
+    long mappedSize() { return buffer.capacity(); }
+
+    // Only absolute reads are used, so the buffer can be shared between threads
+
+    @Override
+    char label(int node) { return buffer.getChar(labelsOffset + 2 * node); }
+
+    @Override
+    int firstChild(int node) { return buffer.getInt(HEADER_SIZE + 4 * node); }
+
+    @Override
+    boolean isLeaf(int node) { return (buffer.getLong(leavesOffset + 8 * (node >>> 6)) & (1L << node)) != 0; }
+}
@@ -0,0 +1,56 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+/**
+ * Receives the metrics of a JaSuggest (see JaSuggestBuilder.withMetrics()).
+ * The methods are called on the querying threads, so implementations should be cheap and thread-safe.
+ */
+public interface JaMetricsListener {
+
+    enum CacheResult {
+        /** The cache is not enabled */
+        DISABLED,
+        /** The result was cached */
+        HIT,
+        /** The result was computed from the cached result of the prefix, or of a shorter prefix (or of a shorter prefix of the same batch) */
+        DERIVED,
+        /** The Trie was traversed */
+        MISS,
+        /** The result was missing, and was computed by a concurrent call for the same query */
+        COALESCED
+    }
+
+    /**
+     * Called after each findSuggestions() call, and for each prefix of a findSuggestionsBatch() call.
+     *
+     * @param prefix The search prefix (as given by the caller).
+     * @param maxResults The maximum number of results requested.
+     * @param cacheResult How the cache was used.
+     * @param nodesVisited The number of nodes visited in the Trie (0 if the result came from the cache).
+     * @param results The number of results returned.
+     * @param latencyNanos The duration of the call, in nanoseconds.
+     */
+    void onQuery(String prefix, int maxResults, CacheResult cacheResult, int nodesVisited, int results, long latencyNanos);
+
+    /**
+     * Called when a cached result expires, or is evicted because the cache is full.
+     *
+     * @param prefix The prefix of the evicted result.
+     */
+    default void onCacheEviction(String prefix) {}
+}
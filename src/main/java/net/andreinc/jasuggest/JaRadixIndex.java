@@ -0,0 +1,264 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.function.Consumer;
+
+/**
+ * An immutable path-compressed (radix) Trie.
+ *
+ * Each chain of nodes having a single child and not marking the end of a term is collapsed into
+ * a single node holding a multi-character label, so long unique suffixes (eg.: "rper" in "usurper")
+ * are stored in one node instead of one HashMap per character.
+ */
+final class JaRadixIndex implements JaIndex {
+
+    private static final char[] EMPTY_LABEL = new char[0];
+    private static final JaRadixNode[] NO_CHILDREN = new JaRadixNode[0];
+
+    private final JaRadixNode root;
+    // The terms of a 'prebuiltWords' Trie (shared with JaSuggest, which accounts for its memory), or null
+    private final JaTermDictionary dictionary;
+
+    private JaRadixIndex(JaRadixNode root, JaTermDictionary dictionary) {
+        this.root = root;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Creates a path-compressed copy of the given Trie.
+     * If the dictionary of the terms is given ('prebuiltWords'), the nodes marking the end of a term also keep
+     * the id of the term, and the terms are passed to the sinks from the dictionary.
+     */
+    static JaRadixIndex freeze(JaMap root, JaTermDictionary dictionary) {
+        JaRadixNode radixRoot = new JaRadixNode(EMPTY_LABEL, root.isLeaf(), -1);
+        Deque<JaRadixTask> stack = new ArrayDeque<>();
+        stack.push(new JaRadixTask(root, radixRoot));
+
+        StringBuilder label = new StringBuilder();
+
+        while (!stack.isEmpty()) {
+            JaRadixTask task = stack.pop();
+            char[] keys = task.node.sortedKeys();
+            JaRadixNode[] children = (keys.length == 0) ? NO_CHILDREN : new JaRadixNode[keys.length];
+
+            for(int i = 0; i < keys.length; ++i) {
+                JaMap child = task.node.get(keys[i]);
+                label.setLength(0);
+                label.append(keys[i]);
+
+                // Collapse the chain of single child nodes
+                while (!child.isLeaf() && child.size() == 1) {
+                    char c = child.keySet().iterator().next();
+                    label.append(c);
+                    child = child.get(c);
+                }
+
+                char[] chars = new char[label.length()];
+                label.getChars(0, chars.length, chars, 0);
+                children[i] = new JaRadixNode(chars, child.isLeaf(), (dictionary != null && child.isLeaf()) ? child.getTermId() : -1);
+                stack.push(new JaRadixTask(child, children[i]));
+            }
+
+            task.radixNode.children = children;
+        }
+
+        return new JaRadixIndex(radixRoot, dictionary);
+    }
+
+    int size() {
+        int count = 0;
+        Deque<JaRadixNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            JaRadixNode node = stack.pop();
+            count++;
+            for(JaRadixNode child : node.children) {
+                stack.push(child);
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public long memorySize() {
+        // Without the dictionary, see JaSuggestStats.getTermBytes()
+        long bytes = 24;
+        Deque<JaRadixNode> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            JaRadixNode node = stack.pop();
+            bytes += JaSuggestStats.align(12 + 4 + 1 + 4 + 4) + JaSuggestStats.arrayBytes(node.label.length, 2);
+            if (node.children != NO_CHILDREN) {
+                bytes += JaSuggestStats.arrayBytes(node.children.length, 4);
+            }
+            for(JaRadixNode child : node.children) {
+                stack.push(child);
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public void collectStats(JaSuggestStats.Collector collector) {
+        Deque<JaRadixNode> stack = new ArrayDeque<>();
+        Deque<Integer> depths = new ArrayDeque<>();
+        stack.push(root);
+        depths.push(0);
+        while (!stack.isEmpty()) {
+            JaRadixNode node = stack.pop();
+            int depth = depths.pop();
+            collector.node(depth, node.children.length, node != root && node.leaf);
+            for(JaRadixNode child : node.children) {
+                stack.push(child);
+                depths.push(depth + 1);
+            }
+        }
+    }
+
+    @Override
+    public int findSuggestions(String prefix, int maxResults, Consumer<? super CharSequence> sink) {
+        JaRadixNode node = root;
+        int i = 0;
+
+        // Descend while the prefix is not exhausted; the prefix may end in the middle of a label
+        int matched = 0;
+        while (i < prefix.length()) {
+            node = node.child(prefix.charAt(i));
+            if (node == null) {
+                return -1;
+            }
+            for(matched = 0; matched < node.label.length && i < prefix.length(); ++matched, ++i) {
+                if (node.label[matched] != prefix.charAt(i)) {
+                    return -1;
+                }
+            }
+        }
+
+        JaTraversal buff = JaTraversal.acquire();
+        buff.start(prefix);
+        int length = prefix.length();
+        int emitted = 0;
+        // The highest index of the stack used, its references are cleared by release()
+        int top = -1, highest = -1;
+
+        try {
+            // The remaining part of the label is appended to the prefix
+            if (matched < node.label.length) {
+                int rest = node.label.length - matched;
+                buff.ensureChars(length + rest);
+                System.arraycopy(node.label, matched, buff.chars, length, rest);
+                length += rest;
+                if (node.leaf && emitted < maxResults) {
+                    buff.length = length;
+                    sink.accept((node.termId >= 0) ? dictionary.term(node.termId, buff.termView) : buff);
+                    emitted++;
+                }
+            }
+
+            int visited = 1;
+            buff.ensureStack(node.children.length);
+            JaRadixNode[] nodes = buff.radixNodes;
+            int[] depths = buff.depths;
+
+            for(int c = node.children.length - 1; c >= 0; --c) {
+                nodes[++top] = node.children[c];
+                depths[top] = length;
+            }
+            highest = top;
+
+            while (top >= 0 && emitted < maxResults) {
+                JaRadixNode current = nodes[top];
+                int depth = depths[top--];
+                visited++;
+
+                buff.ensureChars(depth + current.label.length);
+                System.arraycopy(current.label, 0, buff.chars, depth, current.label.length);
+                depth += current.label.length;
+
+                if (current.leaf) {
+                    buff.length = depth;
+                    sink.accept((current.termId >= 0) ? dictionary.term(current.termId, buff.termView) : buff);
+                    emitted++;
+                }
+
+                if (top + 1 + current.children.length > nodes.length) {
+                    buff.ensureStack(top + 1 + current.children.length);
+                    nodes = buff.radixNodes;
+                    depths = buff.depths;
+                }
+                // Pushed in reverse order so the smallest label is popped first
+                for(int c = current.children.length - 1; c >= 0; --c) {
+                    nodes[++top] = current.children[c];
+                    depths[top] = depth;
+                }
+                highest = Math.max(highest, top);
+            }
+
+            return visited;
+        } finally {
+            buff.release(highest);
+        }
+    }
+
+    static final class JaRadixNode {
+
+        final char[] label;
+        final boolean leaf;
+        // The id of the term in the JaTermDictionary, or -1
+        final int termId;
+        JaRadixNode[] children;
+
+        JaRadixNode(char[] label, boolean leaf, int termId) {
+            this.label = label;
+            this.leaf = leaf;
+            this.termId = termId;
+        }
+
+        /**
+         * Returns the child whose label starts with the given character (the children are sorted by label).
+         */
+        JaRadixNode child(char c) {
+            int low = 0, high = children.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char midChar = children[mid].label[0];
+                if (midChar < c) {
+                    low = mid + 1;
+                } else if (midChar > c) {
+                    high = mid - 1;
+                } else {
+                    return children[mid];
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class JaRadixTask {
+
+        final JaMap node;
+        final JaRadixNode radixNode;
+
+        JaRadixTask(JaMap node, JaRadixNode radixNode) {
+            this.node = node;
+            this.radixNode = radixNode;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import lombok.NonNull;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Holds a JaSuggest that can be rebuilt from new terms while it keeps answering the queries.
+ *
+ * The new JaSuggest is built in the background, then the hottest prefixes of the current cache are computed again
+ * with the new Trie and cached, and only then the new JaSuggest replaces the current one. So the first queries
+ * after a reload don't all miss the cache. The complete results (findSuggestions(prefix)) are only computed
+ * again if the prefix didn't gain terms, so the warming costs about as much as the cached results.
+ *
+ * Each JaSuggest is created by a new JaSuggestBuilder from the given Supplier. If the builder uses a JaCache instance
+ * (JaSuggestBuilder.withCache(JaCache)), the Supplier should create a new one each time.
+ */
+public class JaReloadableSuggest implements Supplier<JaSuggest> {
+
+    public static final int DEFAULT_WARM_ENTRIES = 1024;
+
+    private final Supplier<JaSuggest.JaSuggestBuilder> builders;
+    private final Executor executor;
+    private final int warmEntries;
+    private final Object reloadLock = new Object();
+
+    private volatile JaSuggest current;
+
+    /**
+     * Builds the first JaSuggest from the given terms (in the calling thread). The reloads run on a new daemon thread
+     * and warm up to DEFAULT_WARM_ENTRIES cached results.
+     *
+     * @param builders Creates the builder of each JaSuggest (eg.: () -> JaSuggest.builder().ignoreCase().withCache()).
+     * @param terms The initial terms.
+     */
+    public JaReloadableSuggest(@NonNull Supplier<JaSuggest.JaSuggestBuilder> builders, @NonNull Iterable<String> terms) {
+        this(builders, terms, null, DEFAULT_WARM_ENTRIES);
+    }
+
+    /**
+     * Builds the first JaSuggest from the given terms (in the calling thread).
+     *
+     * @param builders Creates the builder of each JaSuggest.
+     * @param terms The initial terms.
+     * @param executor Runs the reloads, or null to start a new daemon thread for each one.
+     * @param warmEntries The maximum number of cached results computed before a new JaSuggest is used (0 to disable).
+     */
+    public JaReloadableSuggest(@NonNull Supplier<JaSuggest.JaSuggestBuilder> builders, @NonNull Iterable<String> terms,
+                               Executor executor, int warmEntries) {
+        if (warmEntries < 0) {
+            throw new IllegalArgumentException("warmEntries should not be negative.");
+        }
+        this.builders = builders;
+        this.executor = (executor != null) ? executor : JaReloadableSuggest::startDaemon;
+        this.warmEntries = warmEntries;
+        this.current = builders.get().buildFrom(terms);
+    }
+
+    /**
+     * @return The JaSuggest currently answering the queries.
+     */
+    @Override
+    public JaSuggest get() { return current; }
+
+    public List<String> findSuggestions(@NonNull String prefix) {
+        return current.findSuggestions(prefix);
+    }
+
+    public List<String> findSuggestions(@NonNull String prefix, int maxResults) {
+        return current.findSuggestions(prefix, maxResults);
+    }
+
+    /**
+     * Rebuilds the JaSuggest from the given terms in the background.
+     *
+     * @see #reloadFrom(Supplier)
+     */
+    public CompletableFuture<JaSuggest> reload(@NonNull Iterable<String> terms) {
+        return reloadFrom(() -> terms);
+    }
+
+    /**
+     * Rebuilds the JaSuggest in the background, from the terms returned by the Supplier (called in the background too,
+     * eg.: to read a file). The reloads run one at a time. The current JaSuggest is used until the new one is built
+     * and its cache is warmed. If the build fails, the current JaSuggest is kept and the future completes exceptionally.
+     *
+     * @param terms Supplies the new terms.
+     *
+     * @return A future completed with the new JaSuggest, once it answers the queries.
+     */
+    public CompletableFuture<JaSuggest> reloadFrom(@NonNull Supplier<? extends Iterable<String>> terms) {
+        return rebuild(builder -> builder.buildFrom(terms.get()));
+    }
+
+    /**
+     * Rebuilds the JaSuggest in the background from a UTF-8 text file with a term per line,
+     * streamed by JaSuggestBuilder.buildFrom(Path).
+     *
+     * @see #reloadFrom(Supplier)
+     */
+    public CompletableFuture<JaSuggest> reload(@NonNull Path path) {
+        return rebuild(builder -> builder.buildFrom(path));
+    }
+
+    private CompletableFuture<JaSuggest> rebuild(Function<JaSuggest.JaSuggestBuilder, JaSuggest> build) {
+        return CompletableFuture.supplyAsync(() -> {
+            synchronized (reloadLock) {
+                JaSuggest fresh = build.apply(builders.get());
+                JaSuggest old = current;
+                if (fresh.sharesCacheWith(old)) {
+                    throw new IllegalStateException("The new JaSuggest uses the JaCache of the current one, " +
+                                                    "the builder Supplier should create a new JaCache each time.");
+                }
+                fresh.warmCache(old, warmEntries);
+                current = fresh;
+                return fresh;
+            }
+        }, executor);
+    }
+
+    private static void startDaemon(Runnable runnable) {
+        Thread thread = new Thread(runnable, "jasuggest-reload");
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,292 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import lombok.NoArgsConstructor;
+import lombok.NonNull;
+import lombok.experimental.FieldDefaults;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+import static lombok.AccessLevel.PRIVATE;
+
+/**
+ * Splits the terms between multiple shards, each one holding a smaller Trie (possibly in another process).
+ *
+ * A query is sent to the shards that can hold suggestions for the prefix (in parallel if an Executor is given),
+ * and the sorted results are merged with a k-way merge. The answer is the same as the one of a single JaSuggest
+ * built from all the terms.
+ */
+public class JaShardedSuggest {
+
+    public enum Partitioning {
+        /**
+         * Each term goes to a shard chosen by its hash code. The shards have similar sizes,
+         * but every query is sent to all the shards.
+         */
+        HASH,
+        /**
+         * Each shard holds a contiguous range of first characters, balanced by the number of terms.
+         * A query with a non empty prefix is sent to a single shard.
+         */
+        PREFIX_RANGE
+    }
+
+    private final List<JaSuggestShard> shards;
+    // For PREFIX_RANGE: shard i holds the terms starting with a character in [rangeStarts[i], rangeStarts[i + 1])
+    private final char[] rangeStarts;
+    private final boolean ignoreCase;
+    private final Executor executor;
+
+    private JaShardedSuggest(List<JaSuggestShard> shards, char[] rangeStarts, boolean ignoreCase, Executor executor) {
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.rangeStarts = rangeStarts;
+        this.ignoreCase = ignoreCase;
+        this.executor = executor;
+    }
+
+    public static JaShardedSuggestBuilder builder() { return new JaShardedSuggestBuilder(); }
+
+    /**
+     * Creates a JaShardedSuggest from existing shards (eg.: remote ones). Every query is sent to all the shards.
+     *
+     * @param shards The shards.
+     * @param executor The Executor used to query the shards in parallel, or null to query them sequentially.
+     *
+     * @return An instance of JaShardedSuggest
+     */
+    public static JaShardedSuggest of(@NonNull List<? extends JaSuggestShard> shards, Executor executor) {
+        return new JaShardedSuggest(new ArrayList<>(shards), null, false, executor);
+    }
+
+    public List<JaSuggestShard> getShards() { return shards; }
+
+    /**
+     * Searches all the shards for suggestions based on the given prefix.
+     *
+     * @param prefix The search prefix.
+     *
+     * @return A sorted list of all possible suggestions.
+     */
+    public List<String> findSuggestions(@NonNull String prefix) {
+        return findSuggestions(prefix, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Searches the shards for the first 'maxResults' suggestions based on the given prefix.
+     *
+     * @param prefix The search prefix.
+     * @param maxResults The maximum number of results.
+     *
+     * @return A sorted List of suggestions.
+     */
+    public List<String> findSuggestions(@NonNull String prefix, int maxResults) {
+        String normalized = ignoreCase ? prefix.toLowerCase() : prefix;
+
+        if (rangeStarts != null && !normalized.isEmpty()) {
+            return shards.get(rangeOf(rangeStarts, normalized.charAt(0))).findSuggestions(normalized, maxResults);
+        }
+
+        List<List<String>> results = new ArrayList<>(shards.size());
+
+        if (executor == null) {
+            for(JaSuggestShard shard : shards) {
+                results.add(shard.findSuggestions(normalized, maxResults));
+            }
+        } else {
+            List<CompletableFuture<List<String>>> futures = new ArrayList<>(shards.size());
+            for(JaSuggestShard shard : shards) {
+                futures.add(CompletableFuture.supplyAsync(() -> shard.findSuggestions(normalized, maxResults), executor));
+            }
+            for(CompletableFuture<List<String>> future : futures) {
+                results.add(future.join());
+            }
+        }
+
+        return merge(results, maxResults);
+    }
+
+    /**
+     * Merges sorted lists into a sorted list of at most 'maxResults' distinct elements.
+     */
+    static List<String> merge(List<List<String>> sortedLists, int maxResults) {
+        List<String> list = new ArrayList<>();
+
+        // Each entry is {list index, position in the list}, ordered by the element at that position
+        PriorityQueue<int[]> heads = new PriorityQueue<>(Math.max(1, sortedLists.size()),
+                (h1, h2) -> sortedLists.get(h1[0]).get(h1[1]).compareTo(sortedLists.get(h2[0]).get(h2[1])));
+
+        for(int i = 0; i < sortedLists.size(); ++i) {
+            if (!sortedLists.get(i).isEmpty()) {
+                heads.add(new int[] { i, 0 });
+            }
+        }
+
+        while (!heads.isEmpty() && list.size() < maxResults) {
+            int[] head = heads.poll();
+            List<String> source = sortedLists.get(head[0]);
+            String term = source.get(head[1]);
+
+            if (list.isEmpty() || !list.get(list.size() - 1).equals(term)) {
+                list.add(term);
+            }
+
+            if (++head[1] < source.size()) {
+                heads.add(head);
+            }
+        }
+
+        return list;
+    }
+
+    private static int rangeOf(char[] rangeStarts, char c) {
+        int found = Arrays.binarySearch(rangeStarts, c);
+        return (found >= 0) ? found : -found - 2;
+    }
+
+    @NoArgsConstructor
+    @FieldDefaults(level = PRIVATE)
+    public static class JaShardedSuggestBuilder {
+
+        int shards = Runtime.getRuntime().availableProcessors();
+        Partitioning partitioning = Partitioning.HASH;
+        JaSuggest.JaSuggestBuilder shardBuilder = JaSuggest.builder();
+        Executor executor;
+
+        public JaShardedSuggestBuilder shards(int shards) {
+            if (shards < 1) {
+                throw new IllegalArgumentException("The number of shards should be at least 1.");
+            }
+            this.shards = shards;
+            return this;
+        }
+
+        public JaShardedSuggestBuilder partitioning(@NonNull Partitioning partitioning) {
+            this.partitioning = partitioning;
+            return this;
+        }
+
+        /**
+         * The builder used to create each shard (eg.: JaSuggest.builder().ignoreCase().withCache()).
+         * A JaCache implementation should be given with withCache(Supplier), so each shard gets its own.
+         */
+        public JaShardedSuggestBuilder shardBuilder(@NonNull JaSuggest.JaSuggestBuilder shardBuilder) {
+            this.shardBuilder = shardBuilder;
+            return this;
+        }
+
+        /**
+         * The Executor used to query the shards in parallel. By default the shards are queried sequentially.
+         */
+        public JaShardedSuggestBuilder executor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Creates a JaShardedSuggest object from the given terms, each shard being a JaLocalShard.
+         * If one of the terms is NULL, a NullPointerException will be thrown.
+         * If the shard builder uses a single JaCache instance (withCache(JaCache)) an IllegalStateException
+         * will be thrown, as the shards would answer each other's queries from it.
+         *
+         * @param terms The terms we are going to (later) auto-suggest.
+         *
+         * @return An instance of JaShardedSuggest
+         */
+        public JaShardedSuggest buildFrom(@NonNull Iterable<String> terms) {
+            if (shards > 1 && shardBuilder.hasSharedCache()) {
+                throw new IllegalStateException("The shards cannot share a JaCache instance, " +
+                                                "please use JaSuggestBuilder.withCache(Supplier<JaCache>) to create one per shard.");
+            }
+
+            boolean ignoreCase = shardBuilder.isIgnoreCase();
+            List<List<String>> partitions = new ArrayList<>(shards);
+            for(int i = 0; i < shards; ++i) {
+                partitions.add(new ArrayList<>());
+            }
+
+            char[] rangeStarts = null;
+
+            if (partitioning == Partitioning.HASH) {
+                for(String term : terms) {
+                    String normalized = normalize(term, ignoreCase);
+                    partitions.get(Math.floorMod(normalized.hashCode(), shards)).add(normalized);
+                }
+            } else {
+                List<String> normalizedTerms = new ArrayList<>();
+                TreeMap<Character, Integer> counts = new TreeMap<>();
+                for(String term : terms) {
+                    String normalized = normalize(term, ignoreCase);
+                    if (!normalized.isEmpty()) {
+                        normalizedTerms.add(normalized);
+                        counts.merge(normalized.charAt(0), 1, Integer::sum);
+                    }
+                }
+
+                rangeStarts = balancedRanges(counts, normalizedTerms.size());
+                for(String normalized : normalizedTerms) {
+                    partitions.get(rangeOf(rangeStarts, normalized.charAt(0))).add(normalized);
+                }
+            }
+
+            List<JaSuggestShard> built = new ArrayList<>(shards);
+            for(List<String> partition : partitions) {
+                built.add(new JaLocalShard(shardBuilder.buildFrom(partition)));
+            }
+
+            return new JaShardedSuggest(built, rangeStarts, ignoreCase, executor);
+        }
+
+        private static String normalize(String term, boolean ignoreCase) {
+            if (term == null) {
+                throw new NullPointerException("Null term detected. Please check if the Iterable<String> doesn't contain null values.");
+            }
+            return ignoreCase ? term.toLowerCase() : term;
+        }
+
+        /**
+         * Splits the first characters in 'shards' contiguous ranges having about the same number of terms.
+         */
+        private char[] balancedRanges(TreeMap<Character, Integer> counts, int total) {
+            char[] rangeStarts = new char[shards];
+            int shard = 1, seen = 0;
+
+            for(Map.Entry<Character, Integer> entry : counts.entrySet()) {
+                // Start a new range when the previous ones hold their share of the terms
+                if (shard < shards && seen >= (long) total * shard / shards) {
+                    rangeStarts[shard++] = entry.getKey();
+                }
+                seen += entry.getValue();
+            }
+
+            // Not enough distinct characters: the remaining shards get empty ranges at the end
+            for(; shard < shards; ++shard) {
+                rangeStarts[shard] = Character.MAX_VALUE;
+            }
+
+            return rangeStarts;
+        }
+    }
+}
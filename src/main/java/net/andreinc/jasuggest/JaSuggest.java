@@ -18,41 +18,115 @@ package net.andreinc.jasuggest;
 
 import lombok.*;
 import lombok.experimental.FieldDefaults;
-import net.jodah.expiringmap.ExpiringMap;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-import static java.util.Collections.sort;
 import static lombok.AccessLevel.PRIVATE;
 
 public class JaSuggest {
 
     private boolean ignoreCase = false;
-    private boolean prebuiltWords = false;
 
-    private Map<String, List<String>> cache;
-    private JaMap nodes;
+    private JaCache cache;
+    // The results being computed, so the concurrent callers missing the same result can wait for them
+    private final Map<JaCacheKey, CompletableFuture<List<String>>> inFlight = new ConcurrentHashMap<>();
+    // The 'maxResults' values used in the cache keys, so the keys of a prefix can be enumerated
+    private final Set<Integer> cachedLimits = ConcurrentHashMap.newKeySet();
+    private volatile JaMap nodes;
+    // The terms of the leaves when 'prebuiltWords' is used
+    private JaTermDictionary dictionary;
+    private JaIndex index;
+
+    // When 'infix' is true, the substring index of the terms. After a write it is rebuilt on demand, outside
+    // the write lock: the concurrent callers wait for the same build (infixBuild).
+    private final boolean infix;
+    private volatile JaInfixIndex infixIndex;
+    private CompletableFuture<JaInfixIndex> infixBuild;
+    private final Object infixLock = new Object();
+
+    // True if the terms were built with categories (JaSuggestBuilder.buildFromCategorized())
+    private boolean categorized = false;
+
+    // When not null it is notified after each query
+    private final JaMetricsListener metricsListener;
+
+    // When not null the Trie is built in parallel on this pool
+    private ForkJoinPool buildPool;
+
+    // True if the terms go directly into a JaDawgIndex (JaSuggestBuilder.dawg()), without building the Trie
+    private final boolean directDawg;
+
+    // Incremented each time a term is added or removed after the Trie was built
+    private volatile long version = 0;
+    private final Object writeLock = new Object();
 
     private JaSuggest(JaSuggestBuilder jaSuggestBuilder) {
-        if (jaSuggestBuilder.cacheConfig!=null) {
-            this.cache = ExpiringMap.builder()
-                                    .maxSize(jaSuggestBuilder.cacheConfig.getMaxSize())
-                                    .expirationPolicy(jaSuggestBuilder.cacheConfig.getExpirationPolicy())
-                                    .expiration(jaSuggestBuilder.cacheConfig.getExpiration(),
-                                                jaSuggestBuilder.cacheConfig.getExpirationUnit())
-                                    .build();
+        this.metricsListener = jaSuggestBuilder.metricsListener;
+
+        if (jaSuggestBuilder.cache!=null) {
+            this.cache = jaSuggestBuilder.cache;
+        } else if (jaSuggestBuilder.cacheSupplier!=null) {
+            this.cache = Objects.requireNonNull(jaSuggestBuilder.cacheSupplier.get(), "The cache Supplier returned null.");
+        } else if (jaSuggestBuilder.cacheConfig!=null) {
+            this.cache = new JaExpiringCache(jaSuggestBuilder.cacheConfig);
+        }
+
+        if (cache != null && metricsListener != null) {
+            // Registered once per cache and listener, even if many instances share them
+            cache.addEvictionListener(new JaEvictionNotifier(metricsListener));
         }
 
         this.ignoreCase = jaSuggestBuilder.ignoreCase;
-        this.prebuiltWords = jaSuggestBuilder.prebuiltWords;
+        this.buildPool = jaSuggestBuilder.buildPool;
+        this.infix = jaSuggestBuilder.infix;
+        this.directDawg = jaSuggestBuilder.dawg && !jaSuggestBuilder.compact && !jaSuggestBuilder.radix;
 
         this.nodes = new JaMap();
     }
 
+    public boolean isCompact() { return index instanceof JaCompactIndex; }
+
+    public boolean isRadix() { return index instanceof JaRadixIndex; }
+
+    public boolean isMapped() { return index instanceof JaMappedIndex; }
+
+    public boolean isDawg() { return index instanceof JaDawgIndex; }
+
+    private boolean isFrozen() { return index != null; }
+
     public static JaSuggestBuilder builder() { return new JaSuggestBuilder(); }
 
     public boolean hasCache() { return cache != null; }
 
+    public boolean hasInfixIndex() { return infix; }
+
+    public boolean hasCategories() { return categorized; }
+
+    /**
+     * Returns the metrics collected by this JaSuggest, if it was built with JaSuggestBuilder.withMetrics().
+     *
+     * @return The metrics, or null if they were not enabled (or a custom JaMetricsListener is used).
+     */
+    public JaSuggestMetrics getMetrics() {
+        return (metricsListener instanceof JaSuggestMetrics) ? (JaSuggestMetrics) metricsListener : null;
+    }
+
     /**
      * Returns the current size of the map from memory.
      * If the cache doesn't exist it returns -1
@@ -63,6 +137,7 @@ public class JaSuggest {
 
     /**
      * Creates a snapshot of the cache from the memory and returns it.
+     * The same prefix can be cached for different 'maxResults' values, in this case the longest list is returned.
      *
      * @return A cloned representation of the cache from the memory. If the cache is not enabled it will always return an empty Map.
      */
@@ -70,8 +145,11 @@ public class JaSuggest {
         final Map<String, List<String>> result = new HashMap<>();
 
         if (hasCache()) {
-            for(Map.Entry<String, List<String>> entry : cache.entrySet()) {
-                result.put(entry.getKey(), new ArrayList<>(entry.getValue()));
+            for(Map.Entry<JaCacheKey, List<String>> entry : cache.snapshot().entrySet()) {
+                List<String> previous = result.get(entry.getKey().getPrefix());
+                if (previous == null || previous.size() < entry.getValue().size()) {
+                    result.put(entry.getKey().getPrefix(), new ArrayList<>(entry.getValue()));
+                }
             }
         }
 
@@ -88,21 +166,327 @@ public class JaSuggest {
         return this;
     }
 
-    private void addTerms(@NonNull String... terms) {
-        for(String term : terms) {
-            if (term == null) {
-                throw new NullPointerException("Null term detected. Please check if the array String... doesn't contain null values.");
+    private JaSuggest from(@NonNull Map<String, Long> weightedTerms) {
+        this.nodes = new JaAnnotatedMap();
+        addTerms(weightedTerms);
+        return this;
+    }
+
+    private JaSuggest fromCategorized(@NonNull Map<String, ? extends Collection<Integer>> categorizedTerms) {
+        Map<String, long[]> normalized = new HashMap<>();
+        for(Map.Entry<String, ? extends Collection<Integer>> entry : categorizedTerms.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                throw new NullPointerException("Null term or categories detected. Please check if the Map<String, Collection<Integer>> doesn't contain null keys or values.");
+            }
+            String term = this.ignoreCase ? entry.getKey().toLowerCase() : entry.getKey();
+            normalized.merge(term, JaCategories.of(entry.getValue()), JaCategories::union);
+        }
+
+        this.nodes = new JaAnnotatedMap();
+        addTerms(normalized.keySet());
+
+        Map<JaCategories.JaCategoryKey, long[]> interned = JaCategories.newInterner();
+        for(Map.Entry<String, long[]> entry : normalized.entrySet()) {
+            JaMap leaf = getLocationByPrefix(entry.getKey());
+            if (leaf != null && leaf != this.nodes) {
+                ((JaAnnotatedMap) leaf).setTermCategories(JaCategories.intern(entry.getValue(), interned));
             }
-            this.nodes.addTerm(term, prebuiltWords);
         }
+        JaCategories.propagate((JaAnnotatedMap) this.nodes, interned);
+
+        this.categorized = true;
+        return this;
+    }
+
+    private JaSuggest from(@NonNull Reader reader) {
+        addLines(reader);
+        return this;
+    }
+
+    private void packTerms() {
+        this.dictionary = JaTermDictionary.pack(this.nodes);
+    }
+
+    private JaSuggest compact() {
+        this.index = JaCompactIndex.freeze(this.nodes);
+        this.nodes = null;
+        return this;
+    }
+
+    private JaSuggest open(@NonNull Path path) {
+        try {
+            JaMappedIndex mappedIndex = JaMappedIndex.open(path);
+            this.index = mappedIndex;
+            this.ignoreCase = mappedIndex.isIgnoreCase();
+            this.nodes = null;
+            return this;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the Trie to a binary index file that can be later opened with JaSuggestBuilder.buildFromIndexFile().
+     * The file has the same layout as a compact() Trie, and keeps the 'ignoreCase' option.
+     * This is not supported by radix() and dawg() instances.
+     *
+     * @param path The path of the index file. If the file exists it will be overwritten.
+     */
+    public void writeTo(@NonNull Path path) {
+        JaFlatIndex flatIndex;
+
+        if (index instanceof JaFlatIndex) {
+            flatIndex = (JaFlatIndex) index;
+        } else if (!isFrozen()) {
+            flatIndex = JaCompactIndex.freeze(nodes);
+        } else {
+            throw new UnsupportedOperationException("radix() and dawg() instances cannot be written to an index file.");
+        }
+
+        try (OutputStream out = Files.newOutputStream(path)) {
+            flatIndex.writeTo(out, ignoreCase);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JaSuggest dawg() {
+        if (!isDawg()) {
+            // Built from a Trie (eg.: weighted terms)
+            this.index = JaDawgIndex.freeze(this.nodes);
+        }
+        this.dictionary = null;
+        this.nodes = null;
+        return this;
+    }
+
+    private JaSuggest radix() {
+        // The dictionary is kept: the radix index passes its terms to the sinks
+        this.index = JaRadixIndex.freeze(this.nodes, dictionary);
+        this.nodes = null;
+        return this;
+    }
+
+    private void addTerms(@NonNull String... terms) {
+        addTerms(Arrays.asList(terms), "Null term detected. Please check if the array String... doesn't contain null values.");
     }
 
     private void addTerms(Iterable<String> terms) {
+        addTerms(terms, "Null term detected. Please check if the Iterable<String> doesn't contain null values.");
+    }
+
+    private void addTerms(Iterable<String> terms, String nullTermMessage) {
+        if (directDawg) {
+            List<String> normalized = new ArrayList<>();
+            for(String term : terms) {
+                if (term == null) {
+                    throw new NullPointerException(nullTermMessage);
+                }
+                normalized.add(this.ignoreCase ? term.toLowerCase() : term);
+            }
+            this.index = JaDawgIndex.build(Arrays.asList(sort(normalized.toArray(new String[0]))));
+            this.nodes = null;
+            return;
+        }
+
+        if (buildPool != null) {
+            List<String> normalized = new ArrayList<>();
+            for(String term : terms) {
+                if (term == null) {
+                    throw new NullPointerException(nullTermMessage);
+                }
+                normalized.add(this.ignoreCase ? term.toLowerCase() : term);
+            }
+            this.nodes = buildParallel(normalized.toArray(new String[0]), null);
+            return;
+        }
+
+        JaTrieBuilder builder = new JaTrieBuilder(this.nodes);
         for(String term : terms) {
             if (term == null) {
-                throw new NullPointerException("Null term detected. Please check if the Iterable<String> doesn't contain null values.");
+                throw new NullPointerException(nullTermMessage);
+            }
+            builder.add(this.ignoreCase ? term.toLowerCase() : term, 0);
+        }
+    }
+
+    /**
+     * Adds each line of the Reader as a term, while reading it. Only the current line is kept besides the Trie,
+     * and Strings are only created for the lines that need to be lower cased.
+     */
+    private void addLines(Reader reader) {
+        try {
+            JaLineReader lines = new JaLineReader(reader);
+
+            if (buildPool != null || directDawg) {
+                // The parallel build splits the sorted terms and the DAWG is built from them, so they need all of them
+                List<String> terms = new ArrayList<>();
+                while (lines.next()) {
+                    terms.add(lines.toString());
+                }
+                addTerms(terms);
+                return;
+            }
+
+            JaTrieBuilder builder = new JaTrieBuilder(this.nodes);
+            while (lines.next()) {
+                builder.add((!this.ignoreCase || lines.isLowerCaseAscii()) ? lines : lines.toString().toLowerCase(), 0);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void addTerms(Map<String, Long> weightedTerms) {
+        Map<String, Long> normalized = new HashMap<>();
+        for(Map.Entry<String, Long> entry : weightedTerms.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                throw new NullPointerException("Null term or weight detected. Please check if the Map<String, Long> doesn't contain null keys or values.");
+            }
+            if (entry.getValue() < 0) {
+                throw new IllegalArgumentException("Negative weight detected for term '" + entry.getKey() + "'.");
+            }
+            String term = this.ignoreCase ? entry.getKey().toLowerCase() : entry.getKey();
+            normalized.merge(term, entry.getValue(), Math::max);
+        }
+
+        if (buildPool != null) {
+            this.nodes = buildParallel(normalized.keySet().toArray(new String[0]), normalized);
+            return;
+        }
+
+        JaTrieBuilder builder = new JaTrieBuilder(this.nodes);
+        for(Map.Entry<String, Long> entry : normalized.entrySet()) {
+            builder.add(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private JaMap buildParallel(String[] terms, Map<String, Long> weights) {
+        return JaTrieBuilder.buildParallel(sort(terms), weights, this.nodes, buildPool);
+    }
+
+    /**
+     * Sorts the terms (if they are not already sorted), in parallel if a build pool is set.
+     */
+    private String[] sort(String[] terms) {
+        if (!JaTrieBuilder.isSorted(terms)) {
+            if (buildPool != null) {
+                // Invoked from the pool, so the sorting tasks are forked in the same pool
+                buildPool.invoke(ForkJoinTask.adapt(() -> Arrays.parallelSort(terms)));
+            } else {
+                Arrays.sort(terms);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Adds a new term to the Trie, with the weight 0.
+     *
+     * @see #addTerm(String, long)
+     */
+    public boolean addTerm(@NonNull String term) {
+        return addTerm(term, 0);
+    }
+
+    /**
+     * Adds a new term to the Trie. If the term already exists it keeps the biggest of the two weights.
+     *
+     * The method can be called while other threads are searching the Trie. The nodes on the path of the term are
+     * copied and the new version of the Trie is published atomically, so the searches are never blocked and
+     * always see a consistent Trie. The writes are serialized.
+     * Only the cached results for the prefixes of the term are invalidated.
+     * The nodes of a Trie built without weights don't keep them, so the first positive weight copies the Trie once.
+     *
+     * This is not supported by compact(), radix(), dawg() or index file instances.
+     *
+     * @param term The term to add. Empty terms are ignored.
+     * @param weight The weight of the term, used by findTopSuggestions().
+     *
+     * @return true if the term was not already present.
+     */
+    public boolean addTerm(@NonNull String term, long weight) {
+        requireMutable();
+
+        if (weight < 0) {
+            throw new IllegalArgumentException("Negative weight detected for term '" + term + "'.");
+        }
+
+        String normalized = ignoreCase ? term.toLowerCase() : term;
+
+        if (normalized.isEmpty()) {
+            return false;
+        }
+
+        if (infix) {
+            JaInfixIndex.checkTerm(normalized);
+        }
+
+        synchronized (writeLock) {
+            JaMap root = this.nodes;
+            if (weight > 0 && !(root instanceof JaAnnotatedMap)) {
+                // The first weight: from now on the nodes keep the weights
+                root = JaAnnotatedMap.annotate(root);
+            }
+            boolean added = !root.containsTerm(normalized);
+            this.nodes = root.withTerm(normalized, weight, dictionary);
+            this.version++;
+            invalidateCache(normalized);
+            // The running searches may miss the term, the next callers shouldn't wait for them
+            inFlight.clear();
+            return added;
+        }
+    }
+
+    /**
+     * Removes a term from the Trie.
+     *
+     * Like addTerm(), the method can be called while other threads are searching the Trie.
+     * Only the cached results for the prefixes of the term are invalidated.
+     *
+     * This is not supported by compact(), radix(), dawg() or index file instances.
+     *
+     * @param term The term to remove.
+     *
+     * @return true if the term was present.
+     */
+    public boolean removeTerm(@NonNull String term) {
+        requireMutable();
+
+        String normalized = ignoreCase ? term.toLowerCase() : term;
+
+        synchronized (writeLock) {
+            JaMap root = this.nodes;
+            if (normalized.isEmpty() || !root.containsTerm(normalized)) {
+                return false;
+            }
+            this.nodes = root.withoutTerm(normalized);
+            this.version++;
+            invalidateCache(normalized);
+            // The running searches may miss the term, the next callers shouldn't wait for them
+            inFlight.clear();
+            return true;
+        }
+    }
+
+    private void requireMutable() {
+        if (isFrozen()) {
+            throw new UnsupportedOperationException("Terms cannot be added or removed from compact(), radix(), dawg() or index file instances.");
+        }
+    }
+
+    /**
+     * Removes from the cache the results that can contain the term: the ones for the prefixes of the term.
+     */
+    private void invalidateCache(String term) {
+        if (hasCache()) {
+            for(int i = 0; i < term.length(); ++i) {
+                String prefix = term.substring(0, i);
+                for(int limit : cachedLimits) {
+                    cache.remove(new JaCacheKey(prefix, limit, true));
+                    cache.remove(new JaCacheKey(prefix, limit, false));
+                }
             }
-            this.nodes.addTerm(this.ignoreCase ? term.toLowerCase() : term, prebuiltWords);
         }
     }
 
@@ -145,6 +529,74 @@ public class JaSuggest {
         return this.findSuggestionsInternal(prefix, Integer.MAX_VALUE, sorted);
     }
 
+    /**
+     * Searches the current Trie for suggestions based on the given prefix, and passes them to the sink in sorted order
+     * instead of returning a List.
+     *
+     * The CharSequence given to the sink is a view over a reused buffer, only valid until the sink returns
+     * (call toString() to keep it). Without a cache, the traversal uses a per-thread buffer and stack, so Strings
+     * are only created for the results the sink keeps. With a cache, the query goes through it like
+     * findSuggestions(prefix, maxResults): the result is taken (or derived) from the cache, or computed and cached.
+     *
+     * @param prefix The search prefix.
+     * @param maxResults The maximum number of results.
+     * @param sink Receives the suggestions.
+     */
+    public void findSuggestions(@NonNull String prefix, int maxResults, @NonNull Consumer<? super CharSequence> sink) {
+        if (metricsListener == null) {
+            findSuggestions(prefix, maxResults, sink, null);
+            return;
+        }
+
+        long start = System.nanoTime();
+        JaQueryStats stats = new JaQueryStats();
+        int[] results = new int[1];
+        findSuggestions(prefix, maxResults, term -> { results[0]++; sink.accept(term); }, stats);
+        metricsListener.onQuery(prefix, maxResults, stats.cacheResult, stats.nodesVisited, results[0], System.nanoTime() - start);
+    }
+
+    /**
+     * Searches the current Trie for suggestions based on the given prefix, and adds them in sorted order
+     * to the given Collection (eg.: a List reused between queries).
+     *
+     * @param prefix The search prefix.
+     * @param maxResults The maximum number of results.
+     * @param results The Collection receiving the suggestions.
+     */
+    public void findSuggestions(@NonNull String prefix, int maxResults, @NonNull Collection<? super String> results) {
+        findSuggestions(prefix, maxResults, term -> results.add(term.toString()));
+    }
+
+    private void findSuggestions(String prefix, int maxResults, Consumer<? super CharSequence> sink, JaQueryStats stats) {
+        if (ignoreCase) {
+            prefix = prefix.toLowerCase();
+        }
+
+        if (hasCache()) {
+            // The list is shared with the cache, its terms are passed without copying it
+            for(String term : lookup(prefix, maxResults, true, stats)) {
+                sink.accept(term);
+            }
+            return;
+        }
+
+        if (stats != null) {
+            stats.cacheResult = JaMetricsListener.CacheResult.DISABLED;
+        }
+
+        int visited;
+        if (isFrozen()) {
+            visited = index.findSuggestions(prefix, maxResults, sink);
+        } else {
+            JaMap local = getLocationByPrefix(prefix);
+            visited = (local == null) ? -1 : findSuggestions(local, prefix, maxResults, true, sink);
+        }
+
+        if (stats != null && visited >= 0) {
+            stats.nodesVisited = prefix.length() + visited;
+        }
+    }
+
     /**
      * Searches the current Trie for suggestions based on a given prefix.
      *
@@ -155,115 +607,900 @@ public class JaSuggest {
      * @return A List of suggestions.
      */
     public List<String> findSuggestionsInternal(@NonNull String prefix, int maxResults, boolean sorted) {
-        List<String> list = new ArrayList<>();
+        List<String> list;
+
+        if (metricsListener == null) {
+            list = lookup(prefix, maxResults, sorted, null);
+        } else {
+            long start = System.nanoTime();
+            JaQueryStats stats = new JaQueryStats();
+            list = lookup(prefix, maxResults, sorted, stats);
+            metricsListener.onQuery(prefix, maxResults, stats.cacheResult, stats.nodesVisited, list.size(), System.nanoTime() - start);
+        }
+
+        // With a cache the list is shared, the caller gets its own copy
+        return hasCache() ? new ArrayList<>(list) : list;
+    }
+
+    /**
+     * @return The suggestions. With a cache the list is shared with it (it's cached, or derived from a cached one),
+     * so it must not be modified.
+     */
+    private List<String> lookup(String prefix, int maxResults, boolean sorted, JaQueryStats stats) {
+        List<String> list;
         List<String> tmp;
+        long startVersion = this.version;
 
         if (ignoreCase) {
             prefix = prefix.toLowerCase();
         }
 
-        if (hasCache() && (tmp=cache.get(prefix))!=null) {
-            list = new ArrayList<>(tmp);
-        } else {
-            JaMap local = getLocationByPrefix(prefix);
-
-            if (null == local) {
-                // Return empty list if prefix is not present
-                return list;
+        if (hasCache() && (tmp=cache.get(new JaCacheKey(prefix, maxResults, sorted)))!=null) {
+            if (stats != null) {
+                stats.cacheResult = JaMetricsListener.CacheResult.HIT;
             }
+            return tmp;
+        }
 
-            if (prebuiltWords) {
-                findSuggestionsWithPrebuiltWords(prefix, maxResults, list);
-            }
-            else {
-                findSuggestionsInternalWithJaSolution(prefix, maxResults, list);
-            }
+        if (stats != null) {
+            stats.cacheResult = hasCache() ? JaMetricsListener.CacheResult.MISS : JaMetricsListener.CacheResult.DISABLED;
+        }
 
-            if (sorted) {
-                sort(list);
+        if (hasCache() && (tmp=findInCache(prefix, maxResults, sorted))!=null) {
+            if (stats != null) {
+                stats.cacheResult = JaMetricsListener.CacheResult.DERIVED;
             }
+            putInCache(prefix, maxResults, sorted, tmp, startVersion);
+            return tmp;
+        }
 
-            if (list.size() > maxResults) {
-                List<String> newList = new ArrayList<>(maxResults);
-                for(int i = 0; i < maxResults; ++i) {
-                    newList.add(list.get(i));
-                }
-                list = newList;
+        if (!hasCache()) {
+            return (list=traverse(prefix, maxResults, sorted, stats))!=null ? list : new ArrayList<>();
+        }
+
+        // Only one thread traverses the Trie for a missing result, the concurrent callers wait for its result
+        JaCacheKey key = new JaCacheKey(prefix, maxResults, sorted);
+        CompletableFuture<List<String>> future = new CompletableFuture<>();
+        CompletableFuture<List<String>> running = inFlight.putIfAbsent(key, future);
+
+        if (running != null) {
+            if (stats != null) {
+                stats.cacheResult = JaMetricsListener.CacheResult.COALESCED;
             }
+            list = running.join();
+            return (list != null) ? list : Collections.emptyList();
         }
 
-        if (hasCache()) {
-            cache.put(prefix, list);
+        try {
+            // The previous call for the same query may have cached its result and removed its future
+            // after the cache was checked above
+            if ((list=cache.peek(key))!=null) {
+                if (stats != null) {
+                    stats.cacheResult = JaMetricsListener.CacheResult.HIT;
+                }
+            } else if ((list=findInCache(prefix, maxResults, sorted))!=null) {
+                if (stats != null) {
+                    stats.cacheResult = JaMetricsListener.CacheResult.DERIVED;
+                }
+                putInCache(prefix, maxResults, sorted, list, startVersion);
+            } else {
+                list = traverse(prefix, maxResults, sorted, stats);
+                // Cached before the future is removed, so a caller arriving in between finds one of them
+                if (list != null) {
+                    putInCache(prefix, maxResults, sorted, list, startVersion);
+                }
+            }
+            future.complete(list);
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
         }
 
-        return list;
+        // Return empty list if prefix is not present
+        return (list != null) ? list : Collections.emptyList();
     }
 
-    private void findSuggestionsInternalWithJaSolution(@NonNull String prefix, int maxResults, List<String> list) {
-        JaMap local = getLocationByPrefix(prefix);
-        Iterator<Character> it;
-        Character c;
-
-        Stack<JaSolution> stack = new Stack<>();
-        JaSolution current = new JaSolution(local, prefix);
-        stack.push(current);
-
-        while (!stack.isEmpty()) {
-            current = stack.pop();
+    /**
+     * Searches the Trie, without using the cache.
+     *
+     * @return null if the prefix is not present.
+     */
+    private List<String> traverse(String prefix, int maxResults, boolean sorted, JaQueryStats stats) {
+        List<String> list = new ArrayList<>();
 
-            if (current.getNode().isLeaf() && !current.getTerm().equals(prefix)) {
-                list.add(current.getTerm());
+        if (isFrozen()) {
+            int visited = index.findSuggestions(prefix, maxResults, list);
+            if (visited < 0) {
+                return null;
             }
+            if (stats != null) {
+                stats.nodesVisited = prefix.length() + visited;
+            }
+        } else {
+            JaMap local = getLocationByPrefix(prefix);
 
-            it = current.getNode().keySet().iterator();
+            if (null == local) {
+                return null;
+            }
 
-            while (it.hasNext()) {
-                c = it.next();
-                stack.push(new JaSolution(current.getNode().get(c), current.getTerm() + c));
+            int visited = findSuggestions(local, prefix, maxResults, sorted, list);
+            if (stats != null) {
+                stats.nodesVisited = prefix.length() + visited;
             }
         }
-    }
 
-    private void findSuggestionsWithPrebuiltWords(@NonNull String prefix, int maxResults, List<String> list) {
-        Iterator<JaMap> it;
+        return list;
+    }
 
-        Stack<JaMap> stack = new Stack<>();
-        JaMap current = getLocationByPrefix(prefix);
-        stack.push(current);
+    /**
+     * Computes the results of the 'n' most valuable keys of the previous JaSuggest's cache (see JaCache.hottestKeys())
+     * and caches them, without notifying the metrics listener. The prefixes not present are skipped.
+     *
+     * A complete result (cached under Integer.MAX_VALUE) is computed up to the larger of its previous size + 1 and
+     * the largest finite 'maxResults' of the keys, so a prefix whose sub-trie grew doesn't collect all its new terms.
+     * If it grew, only the results of the largest finite 'maxResults' are cached.
+     *
+     * @return The number of results cached.
+     */
+    int warmCache(JaSuggest previous, int n) {
+        if (!hasCache() || !previous.hasCache()) {
+            return 0;
+        }
 
-        while(!stack.isEmpty()) {
-            current = stack.pop();
+        List<JaCacheKey> keys = previous.cache.hottestKeys(n);
+        int finiteLimit = 0;
+        for(JaCacheKey key : keys) {
+            if (key.getMaxResults() != Integer.MAX_VALUE) {
+                finiteLimit = Math.max(finiteLimit, key.getMaxResults());
+            }
+        }
 
-            if (current.isLeaf() && !current.getTerm().equals(prefix)) {
-                list.add(current.getTerm());
+        int warmed = 0;
+        for(JaCacheKey key : keys) {
+            String prefix = ignoreCase ? key.getPrefix().toLowerCase() : key.getPrefix();
+            int limit = key.getMaxResults();
+            if (limit == Integer.MAX_VALUE) {
+                List<String> complete = previous.cache.peek(key);
+                limit = Math.max(finiteLimit, (complete != null) ? complete.size() + 1 : 0);
+                if (limit == 0) {
+                    continue;
+                }
             }
 
-            it = current.values().iterator();
+            long startVersion = this.version;
+            List<String> list = traverse(prefix, limit, key.isSorted(), null);
+            if (list == null) {
+                continue;
+            }
 
-            while(it.hasNext()) {
-                stack.push(it.next());
+            if (limit != key.getMaxResults() && list.size() >= limit) {
+                // The sub-trie grew, the complete result is not known
+                if (finiteLimit == 0) {
+                    continue;
+                }
+                putInCache(prefix, finiteLimit, key.isSorted(), new ArrayList<>(list.subList(0, finiteLimit)), startVersion);
+            } else {
+                putInCache(prefix, key.getMaxResults(), key.isSorted(), list, startVersion);
             }
+            warmed++;
         }
+        return warmed;
     }
 
-    private JaMap getLocationByPrefix(@NonNull String prefix) {
-        JaMap local = this.nodes;
-        for(int i = 0; i < prefix.length(); ++i) {
-            local = local.get(prefix.charAt(i));
-            if (null == local) {
-                return null;
+    boolean sharesCacheWith(JaSuggest other) {
+        return hasCache() && cache == other.cache;
+    }
+
+    private void putInCache(String prefix, int maxResults, boolean sorted, List<String> list, long startVersion) {
+        if (hasCache()) {
+            // A list shorter than 'maxResults' contains all the suggestions, and can answer any other query
+            JaCacheKey key = new JaCacheKey(prefix, (list.size() < maxResults) ? Integer.MAX_VALUE : maxResults, sorted);
+            cachedLimits.add(key.getMaxResults());
+            cache.put(key, list);
+            if (startVersion != this.version) {
+                // The Trie was modified during the search, the result may be already stale
+                cache.remove(key);
             }
         }
-        return local;
     }
 
-    @NoArgsConstructor
-    @FieldDefaults(level = PRIVATE)
-    public static class JaSuggestBuilder {
-
-        JaCacheConfig cacheConfig;
-        boolean ignoreCase = false;
+    /**
+     * Searches the current Trie for the sorted suggestions of many prefixes at once.
+     *
+     * @see #findSuggestionsBatch(Collection, int, ForkJoinPool)
+     */
+    public Map<String, List<String>> findSuggestionsBatch(@NonNull Collection<String> prefixes, int maxResults) {
+        return findSuggestionsBatch(prefixes, maxResults, null);
+    }
+
+    /**
+     * Searches the current Trie for the sorted suggestions of many prefixes at once (eg.: to warm the cache).
+     * The result is the same as calling findSuggestions(prefix, maxResults) for each prefix, but:
+     *
+     * - The prefixes are sorted, and each one is located starting from the node of the common prefix it shares
+     *   with the previous one, so the shared paths are walked only once.
+     * - When a prefix contains another prefix of the batch whose suggestions are all known (eg.: "usef" and "use"),
+     *   its suggestions are filtered from them instead of traversing the Trie again.
+     *
+     * When a pool is given, the prefixes are split in groups that don't contain each other's first prefix, and the
+     * groups are searched in parallel on it (each group walking its own path from the root).
+     * All the prefixes see the same version of the Trie.
+     *
+     * @param prefixes The search prefixes. If one of them is NULL, a NullPointerException will be thrown.
+     * @param maxResults The maximum number of results for each prefix.
+     * @param pool The pool searching the groups in parallel, or null to search them on the calling thread.
+     *
+     * @return A Map with the given prefixes as keys (in iteration order) and their suggestions as values.
+     */
+    public Map<String, List<String>> findSuggestionsBatch(@NonNull Collection<String> prefixes, int maxResults, ForkJoinPool pool) {
+        TreeSet<String> sorted = new TreeSet<>();
+        for(String prefix : prefixes) {
+            if (prefix == null) {
+                throw new NullPointerException("Null prefix detected. Please check if the Collection<String> doesn't contain null values.");
+            }
+            sorted.add(ignoreCase ? prefix.toLowerCase() : prefix);
+        }
+
+        JaMap root = this.nodes;
+        long startVersion = this.version;
+        Map<String, List<String>> found = new HashMap<>();
+
+        // Each group starts with a prefix not containing the previous group's first prefix
+        List<List<String>> groups = new ArrayList<>();
+        if (pool != null) {
+            List<String> group = null;
+            for(String prefix : sorted) {
+                if (group == null || !prefix.startsWith(group.get(0))) {
+                    group = new ArrayList<>();
+                    groups.add(group);
+                }
+                group.add(prefix);
+            }
+        }
+
+        if (groups.size() < 2) {
+            // A single path is carried across all the prefixes
+            found.putAll(findSuggestionsBatch(root, new ArrayList<>(sorted), maxResults, startVersion));
+        } else {
+            List<ForkJoinTask<Map<String, List<String>>>> tasks = new ArrayList<>();
+            for(List<String> g : groups) {
+                tasks.add(pool.submit(() -> findSuggestionsBatch(root, g, maxResults, startVersion)));
+            }
+            for(ForkJoinTask<Map<String, List<String>>> task : tasks) {
+                found.putAll(task.join());
+            }
+        }
+
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        for(String prefix : prefixes) {
+            result.put(prefix, new ArrayList<>(found.get(ignoreCase ? prefix.toLowerCase() : prefix)));
+        }
+        return result;
+    }
+
+    /**
+     * Searches the sorted prefixes (all of them, or a group), carrying the path of the previous prefix.
+     */
+    private Map<String, List<String>> findSuggestionsBatch(JaMap root, List<String> prefixes, int maxResults, long startVersion) {
+        Map<String, List<String>> found = new HashMap<>();
+
+        // The prefixes whose suggestions are all known, each one containing the one below
+        Deque<String> complete = new ArrayDeque<>();
+        // The nodes on the path of the previous prefix: path.get(i) is the node of its first 'i' characters
+        List<JaMap> path = new ArrayList<>();
+        path.add(root);
+        String previous = "";
+
+        for(String prefix : prefixes) {
+            long start = (metricsListener != null) ? System.nanoTime() : 0;
+            JaMetricsListener.CacheResult cacheResult = hasCache() ? JaMetricsListener.CacheResult.MISS
+                                                                   : JaMetricsListener.CacheResult.DISABLED;
+            int visited = 0;
+            List<String> list;
+
+            while (!complete.isEmpty() && !prefix.startsWith(complete.peek())) {
+                complete.pop();
+            }
+
+            // The cached lists are shared, they are copied into the result of findSuggestionsBatch()
+            if (hasCache() && (list=cache.get(new JaCacheKey(prefix, maxResults, true)))!=null) {
+                cacheResult = JaMetricsListener.CacheResult.HIT;
+            } else {
+                if (!complete.isEmpty()) {
+                    list = filterSorted(found.get(complete.peek()), prefix, maxResults);
+                    cacheResult = JaMetricsListener.CacheResult.DERIVED;
+                } else if (hasCache() && (list=findInCache(prefix, maxResults, true))!=null) {
+                    cacheResult = JaMetricsListener.CacheResult.DERIVED;
+                } else if (isFrozen()) {
+                    list = new ArrayList<>();
+                    visited = Math.max(0, index.findSuggestions(prefix, maxResults, list));
+                } else {
+                    list = new ArrayList<>();
+                    // Continue from the node of the common prefix with the previous prefix
+                    int common = 0;
+                    while (common < Math.min(prefix.length(), path.size() - 1) && prefix.charAt(common) == previous.charAt(common)) {
+                        common++;
+                    }
+                    path.subList(common + 1, path.size()).clear();
+
+                    JaMap local = path.get(common);
+                    for(int i = common; i < prefix.length() && local != null; ++i) {
+                        local = local.get(prefix.charAt(i));
+                        visited++;
+                        if (local != null) {
+                            path.add(local);
+                        }
+                    }
+                    previous = prefix;
+
+                    if (local != null) {
+                        visited += findSuggestions(local, prefix, maxResults, true, list);
+                    }
+                }
+                putInCache(prefix, maxResults, true, list, startVersion);
+            }
+
+            if (list.size() < maxResults) {
+                complete.push(prefix);
+            }
+            found.put(prefix, list);
+
+            if (metricsListener != null) {
+                metricsListener.onQuery(prefix, maxResults, cacheResult, visited, list.size(), System.nanoTime() - start);
+            }
+        }
+
+        return found;
+    }
+
+    /**
+     * Derives the suggestions from the complete list of suggestions cached for the prefix,
+     * or for the closest shorter prefix (eg.: "use" can be answered by filtering the suggestions of "us").
+     * The cached lists are probed with JaCache.peek(), so they are not counted as lookups.
+     *
+     * @return null if no such list is cached.
+     */
+    private List<String> findInCache(String prefix, int maxResults, boolean sorted) {
+        for(int i = prefix.length(); i >= 0; --i) {
+            String ancestor = prefix.substring(0, i);
+            List<String> complete;
+
+            if ((complete=cache.peek(new JaCacheKey(ancestor, Integer.MAX_VALUE, true)))!=null) {
+                return filterSorted(complete, prefix, maxResults);
+            }
+            if ((complete=cache.peek(new JaCacheKey(ancestor, Integer.MAX_VALUE, false)))!=null) {
+                return filter(complete, prefix, maxResults, sorted);
+            }
+        }
+        return null;
+    }
+
+    private static List<String> filterSorted(List<String> complete, String prefix, int maxResults) {
+        List<String> list = new ArrayList<>();
+        int from = Collections.binarySearch(complete, prefix);
+
+        // The prefix itself is never a suggestion
+        from = (from >= 0) ? from + 1 : -from - 1;
+
+        for(int i = from; i < complete.size() && list.size() < maxResults && complete.get(i).startsWith(prefix); ++i) {
+            list.add(complete.get(i));
+        }
+
+        return list;
+    }
+
+    private static List<String> filter(List<String> complete, String prefix, int maxResults, boolean sorted) {
+        List<String> list = new ArrayList<>();
+
+        for(String term : complete) {
+            if (!sorted && list.size() >= maxResults) {
+                break;
+            }
+            if (term.startsWith(prefix) && !term.equals(prefix)) {
+                list.add(term);
+            }
+        }
+
+        if (sorted) {
+            Collections.sort(list);
+            if (list.size() > maxResults) {
+                list = new ArrayList<>(list.subList(0, maxResults));
+            }
+        }
+
+        return list;
+    }
+
+    /**
+     * Searches the current Trie for the heaviest suggestions based on the given prefix.
+     * The terms are ordered by their weight (descending) and then alphabetically.
+     * Terms built without a weight have the weight 0.
+     *
+     * A best-first search is performed: each node knows the maximum weight in its sub-trie, so only the
+     * branches that can still contain one of the 'k' heaviest terms are expanded.
+     *
+     * @param prefix The search prefix.
+     * @param k The maximum number of results.
+     *
+     * @return A List of suggestions ordered by weight.
+     */
+    public List<String> findTopSuggestions(@NonNull String prefix, int k) {
+        if (isFrozen()) {
+            throw new UnsupportedOperationException("Weighted suggestions are not supported by compact(), radix(), dawg() or index file instances.");
+        }
+
+        if (ignoreCase) {
+            prefix = prefix.toLowerCase();
+        }
+
+        List<String> list = new ArrayList<>();
+        JaMap local = getLocationByPrefix(prefix);
+
+        if (null == local || k <= 0) {
+            return list;
+        }
+
+        // Heaviest first. For equal weights the smallest term comes first: every term in the sub-trie of a node
+        // is greater or equal than the term leading to the node, so the ties are also resolved alphabetically.
+        PriorityQueue<JaWeightedSolution> queue = new PriorityQueue<>((s1, s2) -> {
+            int cmp = Long.compare(s2.getWeight(), s1.getWeight());
+            return (cmp != 0) ? cmp : s1.getTerm().compareTo(s2.getTerm());
+        });
+        queue.add(new JaWeightedSolution(local, prefix, local.getMaxWeight()));
+
+        while (!queue.isEmpty() && list.size() < k) {
+            JaWeightedSolution current = queue.poll();
+            JaMap node = current.getNode();
+
+            if (node == null) {
+                // A term whose weight is greater than anything left in the queue
+                list.add(current.getTerm());
+                continue;
+            }
+
+            if (node.isLeaf() && node != local) {
+                queue.add(new JaWeightedSolution(null, current.getTerm(), node.getWeight()));
+            }
+
+            for(Map.Entry<Character, JaMap> entry : node.entrySet()) {
+                JaMap child = entry.getValue();
+                queue.add(new JaWeightedSolution(child, current.getTerm() + entry.getKey(), child.getMaxWeight()));
+            }
+        }
+
+        return list;
+    }
+
+    /**
+     * Searches for the terms containing the given fragment anywhere, eg.: "ful" suggests "useful".
+     * The fragment is located with two binary searches in the suffix array built by JaSuggestBuilder.withInfixIndex(),
+     * so the cost depends on the number of matches and not on the number of terms.
+     * The results are sorted. The fragment itself is not a suggestion.
+     *
+     * After addTerm() or removeTerm() the suffix array is rebuilt by the next call, without blocking the writes
+     * and the other searches. The concurrent calls wait for the same rebuild.
+     *
+     * @param fragment The search fragment.
+     * @param k The maximum number of results.
+     *
+     * @return A sorted List of suggestions.
+     */
+    public List<String> findInfixSuggestions(@NonNull String fragment, int k) {
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+
+        if (ignoreCase) {
+            fragment = fragment.toLowerCase();
+        }
+
+        return infixIndex().find(fragment, k);
+    }
+
+    /**
+     * Returns an estimation of the memory used by the infix index, to decide if it's worth enabling it.
+     * If the infix index is not enabled it returns -1.
+     *
+     * @return The size in bytes.
+     */
+    public long infixIndexSize() { return (hasInfixIndex()) ? infixIndex().memorySize() : -1; }
+
+    private JaInfixIndex infixIndex() {
+        if (!hasInfixIndex()) {
+            throw new IllegalStateException("The infix index is not enabled. Please use JaSuggestBuilder.withInfixIndex().");
+        }
+
+        // Read before the terms, so an index is never labelled with a newer version than its terms
+        long version = this.version;
+        JaInfixIndex current = this.infixIndex;
+        if (current != null && current.version() >= version) {
+            return current;
+        }
+
+        CompletableFuture<JaInfixIndex> build;
+        boolean owner = false;
+        synchronized (infixLock) {
+            current = this.infixIndex;
+            if (current != null && current.version() >= version) {
+                return current;
+            }
+            build = this.infixBuild;
+            if (build == null) {
+                build = new CompletableFuture<>();
+                this.infixBuild = build;
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            try {
+                current = JaInfixIndex.build(version, allTerms());
+                synchronized (infixLock) {
+                    if (this.infixIndex == null || this.infixIndex.version() < version) {
+                        this.infixIndex = current;
+                    }
+                    this.infixBuild = null;
+                }
+                build.complete(current);
+            } catch (RuntimeException | Error e) {
+                synchronized (infixLock) {
+                    this.infixBuild = null;
+                }
+                build.completeExceptionally(e);
+                throw e;
+            }
+            return current;
+        }
+
+        // Built from the terms of this version, or of a newer one
+        current = build.join();
+        return (current.version() >= version) ? current : infixIndex();
+    }
+
+    /**
+     * Computes the structure (nodes, terms, depth and fan-out histograms) and the estimated memory footprint
+     * (the Trie or the frozen index, the packed terms, the infix index and the cache) of this JaSuggest.
+     * The nodes are visited once, with an explicit stack, so the depth of the Trie is not limited.
+     *
+     * @return The statistics of the current version of the Trie.
+     */
+    public JaSuggestStats stats() {
+        JaSuggestStats.Collector collector = new JaSuggestStats.Collector();
+        String engine;
+        long indexBytes;
+        long mappedBytes = 0;
+
+        if (isFrozen()) {
+            engine = isCompact() ? "compact" : isRadix() ? "radix" : isDawg() ? "dawg" : "mapped";
+            index.collectStats(collector);
+            indexBytes = index.memorySize();
+            if (isMapped()) {
+                mappedBytes = ((JaMappedIndex) index).mappedSize();
+            }
+        } else {
+            engine = "trie";
+            indexBytes = collectStats(this.nodes, collector);
+        }
+
+        JaInfixIndex infixIndex = this.infixIndex;
+        int cacheEntries = 0;
+        long cacheBytes = 0;
+        if (hasCache()) {
+            for(Map.Entry<JaCacheKey, List<String>> entry : cache.snapshot().entrySet()) {
+                cacheEntries++;
+                cacheBytes += JaTinyLfuCache.estimateBytes(entry.getKey(), entry.getValue());
+            }
+        }
+
+        return collector.build(engine, indexBytes, (dictionary != null) ? dictionary.memorySize() : 0,
+                               (infixIndex != null) ? infixIndex.memorySize() : 0, cacheEntries, cacheBytes, mappedBytes);
+    }
+
+    /**
+     * Passes the nodes of the Trie to the collector, depth-first.
+     *
+     * @return The estimated heap memory of the nodes and of their (distinct) categories.
+     */
+    private static long collectStats(JaMap root, JaSuggestStats.Collector collector) {
+        long bytes = 0;
+        Set<long[]> categories = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<JaMap> stack = new ArrayDeque<>();
+        Deque<Integer> depths = new ArrayDeque<>();
+        stack.push(root);
+        depths.push(0);
+
+        while (!stack.isEmpty()) {
+            JaMap node = stack.pop();
+            int depth = depths.pop();
+            collector.node(depth, node.size(), node != root && node.isLeaf());
+            bytes += node.memorySize();
+            if (node.getCategories() != null) {
+                categories.add(node.getCategories());
+            }
+            if (node.getTermCategories() != null) {
+                categories.add(node.getTermCategories());
+            }
+            // forEach() doesn't create the keySet() or values() views of the HashMap
+            node.forEach((c, child) -> {
+                stack.push(child);
+                depths.push(depth + 1);
+            });
+        }
+
+        for(long[] set : categories) {
+            bytes += JaSuggestStats.arrayBytes(set.length, 8);
+        }
+        return bytes;
+    }
+
+    /**
+     * Freezes this Trie in each way and estimates the size of the results. The leaves get the ids of a
+     * JaTermDictionary, so this Trie should only be used for the projection.
+     */
+    private Map<JaSuggestStats.Option, Long> projectMemory() {
+        Map<JaSuggestStats.Option, Long> projection = new EnumMap<>(JaSuggestStats.Option.class);
+        JaMap root = this.nodes;
+
+        projection.put(JaSuggestStats.Option.COMPACT, JaCompactIndex.freeze(root).memorySize());
+        projection.put(JaSuggestStats.Option.RADIX, JaRadixIndex.freeze(root, null).memorySize());
+        projection.put(JaSuggestStats.Option.DAWG, JaDawgIndex.freeze(root).memorySize());
+        projection.put(JaSuggestStats.Option.INFIX_INDEX, JaInfixIndex.build(version, allTerms()).memorySize());
+
+        // Measured after the traversals above, so the sorted keys of the nodes are included, like after the first queries
+        long trieBytes = collectStats(root, new JaSuggestStats.Collector());
+        projection.put(JaSuggestStats.Option.TRIE, trieBytes);
+
+        JaTermDictionary dictionary = JaTermDictionary.pack(root);
+        projection.put(JaSuggestStats.Option.PREBUILT_WORDS, trieBytes + dictionary.memorySize());
+        projection.put(JaSuggestStats.Option.RADIX_PREBUILT_WORDS, JaRadixIndex.freeze(root, dictionary).memorySize()
+                                                                   + dictionary.memorySize());
+
+        return projection;
+    }
+
+    /**
+     * @return All the terms, sorted (without going through the cache).
+     */
+    private List<String> allTerms() {
+        List<String> list = new ArrayList<>();
+        if (isFrozen()) {
+            index.findSuggestions("", Integer.MAX_VALUE, list);
+        } else {
+            findSuggestions(nodes, "", Integer.MAX_VALUE, true, list);
+        }
+        return list;
+    }
+
+    /**
+     * Searches the current Trie for suggestions whose prefix is within 'maxEdits' edits of the given prefix,
+     * so typos like "usr" or "uesful" still lead to "user" or "useful".
+     * Insertions, deletions, substitutions and transpositions of adjacent characters count as one edit each.
+     *
+     * The Trie is walked once and the branches exceeding the edit budget are pruned.
+     * The results are ordered by distance and then alphabetically. The prefix itself is not a suggestion.
+     *
+     * @param prefix The (possibly misspelled) search prefix.
+     * @param maxEdits The maximum number of edits.
+     * @param k The maximum number of results.
+     *
+     * @return A List of suggestions ordered by distance.
+     */
+    public List<String> findFuzzySuggestions(@NonNull String prefix, int maxEdits, int k) {
+        if (isFrozen()) {
+            throw new UnsupportedOperationException("Fuzzy suggestions are not supported by compact(), radix(), dawg() or index file instances.");
+        }
+
+        if (maxEdits < 0) {
+            throw new IllegalArgumentException("maxEdits cannot be negative.");
+        }
+
+        if (k <= 0) {
+            return new ArrayList<>();
+        }
+
+        if (ignoreCase) {
+            prefix = prefix.toLowerCase();
+        }
+
+        return JaFuzzySearch.find(nodes, prefix, maxEdits, k);
+    }
+
+    /**
+     * @return The number of nodes visited.
+     */
+    int findSuggestions(JaMap local, String prefix, int maxResults, boolean sorted, List<String> list) {
+        return findSuggestions(local, prefix, maxResults, sorted, term -> list.add(term.toString()));
+    }
+
+    /**
+     * Passes the terms under the node to the sink, with a per-thread buffer and stack: nothing is allocated
+     * per visited node, and with 'prebuiltWords' the terms are passed from the JaTermDictionary.
+     *
+     * @return The number of nodes visited.
+     */
+    int findSuggestions(JaMap local, String prefix, int maxResults, boolean sorted, Consumer<? super CharSequence> sink) {
+        return findSuggestions(local, prefix, maxResults, sorted, sink, null);
+    }
+
+    /**
+     * @param mask When not null, only the terms having one of these categories are passed to the sink,
+     *             and the sub-tries without such terms are skipped.
+     */
+    private int findSuggestions(JaMap local, String prefix, int maxResults, boolean sorted,
+                                Consumer<? super CharSequence> sink, long[] mask) {
+        if (mask != null && !JaCategories.intersects(local.getCategories(), mask)) {
+            return 1;
+        }
+
+        JaTraversal traversal = JaTraversal.acquire();
+        traversal.start(prefix);
+
+        // Children are visited in ascending character order when sorting is requested,
+        // so the traversal yields results already sorted and can stop after 'maxResults'
+        int top = 0;
+        traversal.nodes[0] = local;
+        traversal.depths[0] = prefix.length();
+        int visited = 0, emitted = 0;
+
+        try {
+            while (top >= 0 && emitted < maxResults) {
+                JaMap node = traversal.nodes[top];
+                int depth = traversal.depths[top];
+                char label = traversal.labels[top];
+                traversal.nodes[top--] = null;
+                visited++;
+
+                if (depth > prefix.length()) {
+                    traversal.ensureChars(depth);
+                    traversal.chars[depth - 1] = label;
+                }
+
+                if (node.isLeaf() && node != local && (mask == null || JaCategories.intersects(node.getTermCategories(), mask))) {
+                    traversal.length = depth;
+                    sink.accept((dictionary != null) ? dictionary.term(node.getTermId(), traversal.termView) : traversal);
+                    emitted++;
+                }
+
+                traversal.ensureStack(top + 1 + node.size());
+                if (sorted) {
+                    // Pushed in reverse order so the smallest character is popped first
+                    char[] keys = node.sortedKeys();
+                    for(int i = keys.length - 1; i >= 0; --i) {
+                        JaMap child = node.get(keys[i]);
+                        if (mask != null && !JaCategories.intersects(child.getCategories(), mask)) {
+                            continue;
+                        }
+                        traversal.nodes[++top] = child;
+                        traversal.depths[top] = depth + 1;
+                        traversal.labels[top] = keys[i];
+                    }
+                }
+                else {
+                    for(Map.Entry<Character, JaMap> entry : node.entrySet()) {
+                        traversal.nodes[++top] = entry.getValue();
+                        traversal.depths[top] = depth + 1;
+                        traversal.labels[top] = entry.getKey();
+                    }
+                }
+            }
+        } finally {
+            traversal.release(top);
+        }
+
+        return visited;
+    }
+
+    /**
+     * Searches the current Trie for the sorted suggestions of the given prefix having at least one
+     * of the categories of the filter. Each node knows the categories of its sub-trie, so the sub-tries
+     * without a matching term are skipped. The results are not cached.
+     * The terms added with addTerm() have no categories.
+     *
+     * @param prefix The search prefix.
+     * @param maxResults The maximum number of results.
+     * @param categoryFilter The categories of the results (eg.: JaCategoryFilter.anyOf(tenantId)).
+     *
+     * @return A sorted List of suggestions.
+     */
+    public List<String> findSuggestions(@NonNull String prefix, int maxResults, @NonNull JaCategoryFilter categoryFilter) {
+        if (isFrozen()) {
+            throw new UnsupportedOperationException("Category filters are not supported by compact(), radix(), dawg() or index file instances.");
+        }
+        if (!hasCategories()) {
+            throw new IllegalStateException("The categories are not available. The JaSuggest should be created with buildFromCategorized().");
+        }
+
+        if (ignoreCase) {
+            prefix = prefix.toLowerCase();
+        }
+
+        List<String> list = new ArrayList<>();
+        JaMap local = getLocationByPrefix(prefix);
+        if (local != null && maxResults > 0) {
+            findSuggestions(local, prefix, maxResults, true, term -> list.add(term.toString()), categoryFilter.getMask());
+        }
+        return list;
+    }
+
+    /**
+     * Returns a lazy Stream of the sorted suggestions for the given prefix.
+     * The Trie is traversed as the Stream is consumed, so no List of results is built, and limiting the
+     * Stream stops the traversal. A parallel Stream splits the traversal by sub-tries.
+     * The Stream sees the Trie as it was when the method was called, the cache is not used.
+     *
+     * For frozen (compact(), radix(), dawg(), index file) instances the suggestions are retrieved eagerly.
+     *
+     * @param prefix The search prefix.
+     *
+     * @return A sorted Stream of suggestions.
+     */
+    public Stream<String> streamSuggestions(@NonNull String prefix) {
+        if (ignoreCase) {
+            prefix = prefix.toLowerCase();
+        }
+
+        if (isFrozen()) {
+            List<String> list = new ArrayList<>();
+            index.findSuggestions(prefix, Integer.MAX_VALUE, list);
+            return list.stream();
+        }
+
+        JaMap local = getLocationByPrefix(prefix);
+
+        if (null == local) {
+            return Stream.empty();
+        }
+
+        return StreamSupport.stream(new JaSuggestSpliterator(local, prefix), false);
+    }
+
+    /**
+     * Creates a new typing session, that keeps the position in the Trie between keystrokes.
+     *
+     * @return A new JaSuggestSession with an empty prefix.
+     */
+    public JaSuggestSession newSession() {
+        return new JaSuggestSession(this);
+    }
+
+    /**
+     * @return true if the terms and the prefixes are lower cased (see ignoreCase()).
+     */
+    public boolean isIgnoreCase() { return ignoreCase; }
+
+    /**
+     * Returns the current root of the Trie, or null for frozen instances.
+     */
+    JaMap root() { return nodes; }
+
+    private JaMap getLocationByPrefix(@NonNull String prefix) {
+        JaMap local = this.nodes;
+        for(int i = 0; i < prefix.length(); ++i) {
+            local = local.get(prefix.charAt(i));
+            if (null == local) {
+                return null;
+            }
+        }
+        return local;
+    }
+
+    @NoArgsConstructor
+    @FieldDefaults(level = PRIVATE)
+    public static class JaSuggestBuilder {
+
+        JaCacheConfig cacheConfig;
+        JaCache cache;
+        Supplier<? extends JaCache> cacheSupplier;
+        boolean ignoreCase = false;
         boolean prebuiltWords = false;
+        boolean compact = false;
+        boolean radix = false;
+        boolean dawg = false;
+        boolean infix = false;
+        ForkJoinPool buildPool;
+        JaMetricsListener metricsListener;
 
         public JaSuggestBuilder withCache(JaCacheConfig config) {
             this.cacheConfig = config;
@@ -275,15 +1512,65 @@ public class JaSuggest {
             return this;
         }
 
+        /**
+         * Uses the given JaCache implementation, eg.: a JaTinyLfuCache bounded in bytes.
+         * When a result is missing from the cache, only one of the concurrent callers asking for it searches the Trie,
+         * the others wait for its result.
+         *
+         * The same JaCache is used by every JaSuggest created by this builder, so the builder should only create one.
+         * Otherwise (eg.: for the shards of a JaShardedSuggest) use withCache(Supplier).
+         *
+         * @return
+         */
+        public JaSuggestBuilder withCache(@NonNull JaCache cache) {
+            this.cache = cache;
+            this.cacheSupplier = null;
+            return this;
+        }
+
+        /**
+         * Uses a new JaCache from the Supplier for each JaSuggest created by this builder
+         * (eg.: () -> new JaTinyLfuCache(64 * 1024 * 1024)), so the instances never share their results.
+         *
+         * @return
+         */
+        public JaSuggestBuilder withCache(@NonNull Supplier<? extends JaCache> cacheSupplier) {
+            this.cacheSupplier = cacheSupplier;
+            this.cache = null;
+            return this;
+        }
+
+        /**
+         * Collects metrics about the queries and the cache in a JaSuggestMetrics, available through JaSuggest.getMetrics().
+         *
+         * @return
+         */
+        public JaSuggestBuilder withMetrics() {
+            return withMetrics(new JaSuggestMetrics());
+        }
+
+        /**
+         * Notifies the given listener after each findSuggestions() call and each cache eviction,
+         * eg.: to export the metrics to a monitoring system. The listener is called on the querying thread,
+         * so it should be cheap and thread-safe.
+         *
+         * @return
+         */
+        public JaSuggestBuilder withMetrics(@NonNull JaMetricsListener listener) {
+            this.metricsListener = listener;
+            return this;
+        }
+
         public JaSuggestBuilder ignoreCase() {
             this.ignoreCase = true;
             return this;
         }
 
         /**
-         * If this option is activated the words are stored on the leafs of the Trie.
-         * This mean that memory consumption will increase accordingly, but the results will be retrieved
-         * in a way that can increase performance.
+         * If this option is activated the words are stored with the Trie, so the leafs give the whole word
+         * instead of the path leading to them. The words are packed in a single char[] (a JaTermDictionary)
+         * and the leafs only keep their index, so memory consumption increases by ~2 bytes per character
+         * and 4 bytes per word. Strings are only created for the returned results.
          *
          * @return
          */
@@ -292,8 +1579,88 @@ public class JaSuggest {
             return this;
         }
 
+        /**
+         * If this option is activated, after all the terms are added the Trie is frozen into an immutable
+         * structure made of a few primitive arrays (characters, child offsets and a leaf bitset).
+         * This reduces the memory used per node and improves the locality of the traversals.
+         * The results are always retrieved in sorted order, and 'prebuiltWords' has no effect.
+         *
+         * @return
+         */
+        public JaSuggestBuilder compact() {
+            this.compact = true;
+            return this;
+        }
+
+        /**
+         * If this option is activated, after all the terms are added the Trie is frozen into an immutable
+         * path-compressed (radix) Trie: the chains of nodes with a single child are collapsed into a single
+         * node holding a multi-character label. This reduces the number of nodes and the memory consumption.
+         * The results are always retrieved in sorted order. It can be combined with 'prebuiltWords'.
+         *
+         * @return
+         */
+        public JaSuggestBuilder radix() {
+            this.radix = true;
+            return this;
+        }
+
+        /**
+         * If this option is activated the terms are stored in an immutable minimal automaton (DAWG):
+         * the sub-tries that are identical are stored once, so the common suffixes (eg.: "-ing", "-ness")
+         * are shared by all the words ending with them. This needs the fewest nodes.
+         * The terms are sorted (if they are not already) and the automaton is built from them incrementally,
+         * without building the Trie first, so the peak memory is the terms and the automaton. Only the weighted
+         * terms (buildFromWeighted()) still go through a Trie. The results are always retrieved in sorted order,
+         * and 'prebuiltWords' has no effect.
+         *
+         * @return
+         */
+        public JaSuggestBuilder dawg() {
+            this.dawg = true;
+            return this;
+        }
+
+        /**
+         * If this option is activated a suffix array of the terms is built, to answer JaSuggest.findInfixSuggestions().
+         * It uses about 6 bytes per character of the terms, see JaSuggest.infixIndexSize().
+         * It can be combined with all the other options.
+         *
+         * @return
+         */
+        public JaSuggestBuilder withInfixIndex() {
+            this.infix = true;
+            return this;
+        }
+
+        /**
+         * If this option is activated the Trie is built in parallel on the common ForkJoinPool.
+         *
+         * @see #parallelBuild(ForkJoinPool)
+         */
+        public JaSuggestBuilder parallelBuild() {
+            return parallelBuild(ForkJoinPool.commonPool());
+        }
+
+        /**
+         * If this option is activated the Trie is built in parallel on the given ForkJoinPool.
+         * The terms are sorted (if they are not already), then split in ranges sharing the same leading characters.
+         * Each range is built by a different task, and the resulting sub-tries are attached to their parent.
+         * This is worth it for big dictionaries, as the terms need to be copied in an array first.
+         *
+         * @param pool The pool running the tasks.
+         *
+         * @return
+         */
+        public JaSuggestBuilder parallelBuild(@NonNull ForkJoinPool pool) {
+            this.buildPool = pool;
+            return this;
+        }
+
         /**
          * Creates a JaSuggest object from a given array of terms.
+         * With ignoreCase() the terms are lower cased, like the ones of buildFrom(Iterable). They used to be added
+         * as they were, so the terms having upper case letters could not be found.
          * If one of the terms in the array is NULL, a NullPointerException will be thrown.
          * Validate input before calling this method.
          *
@@ -303,7 +1670,7 @@ public class JaSuggest {
          * @return An instance of JaSuggest
          */
         public JaSuggest buildFrom(String... terms) {
-            return new JaSuggest(this).from(terms);
+            return build(new JaSuggest(this).from(terms));
         }
 
         /**
@@ -317,40 +1684,175 @@ public class JaSuggest {
          * @return An instance of JaSuggest
          */
         public JaSuggest buildFrom(Iterable<String> terms) {
-            return new JaSuggest(this).from(terms);
+            return build(new JaSuggest(this).from(terms));
         }
-    }
-}
 
-@ToString
-class JaMap extends HashMap<Character, JaMap> {
+        /**
+         * Creates a JaSuggest object from a given Map of terms and their weights (eg.: popularity).
+         * The weights are used to order the results of findTopSuggestions().
+         * If one of the terms or weights is NULL, a NullPointerException will be thrown.
+         * If one of the weights is negative an IllegalArgumentException will be thrown.
+         *
+         * @param weightedTerms A Map with the terms we are going to (later) auto-suggest as keys and their weights as values.
+         *
+         * @return An instance of JaSuggest
+         */
+        public JaSuggest buildFromWeighted(Map<String, Long> weightedTerms) {
+            return build(new JaSuggest(this).from(weightedTerms));
+        }
 
-    @Getter @Setter private boolean isLeaf;
-    @Getter @Setter private String term;
+        /**
+         * Creates a JaSuggest object from a given Map of terms and their categories (eg.: the ids of the tenants
+         * or catalogs having the term), so a single Trie can serve all of them with findSuggestions(String, int, JaCategoryFilter).
+         * Each node keeps the set of categories of its sub-trie as a bitset, and the equal sets are shared.
+         * The ids should be small non-negative numbers, as a set of categories takes (maxId / 64 + 1) longs.
+         * It cannot be combined with compact(), radix() or dawg().
+         * If one of the terms or categories is NULL, a NullPointerException will be thrown.
+         * If one of the categories is negative an IllegalArgumentException will be thrown.
+         *
+         * @param categorizedTerms A Map with the terms as keys and their categories as values.
+         *
+         * @return An instance of JaSuggest
+         */
+        public JaSuggest buildFromCategorized(@NonNull Map<String, ? extends Collection<Integer>> categorizedTerms) {
+            if (compact || radix || dawg) {
+                throw new IllegalStateException("The categories cannot be combined with the compact(), radix() and dawg() options.");
+            }
+            return build(new JaSuggest(this).fromCategorized(categorizedTerms));
+        }
 
-    protected void addTerm(String term, boolean prebuiltWords) {
+        /**
+         * Creates a JaSuggest object from a text file encoded in UTF-8, with a term per line.
+         *
+         * @see #buildFrom(Path, Charset)
+         */
+        public JaSuggest buildFrom(@NonNull Path path) {
+            return buildFrom(path, StandardCharsets.UTF_8);
+        }
 
-        JaMap current = this;
-        int lastLetterIndex = term.length() - 1;
+        /**
+         * Creates a JaSuggest object from a text file with a term per line. The file is read in blocks and the terms
+         * are added while reading it, so it's never loaded in memory. The empty lines are ignored.
+         * The build is faster if the lines are sorted: the Trie path shared with the previous term is reused.
+         * With parallelBuild() the lines are collected first, as the sorted terms are split between the tasks.
+         * If the file cannot be read (or decoded) an UncheckedIOException will be thrown.
+         *
+         * @param path The path of the file.
+         * @param charset The encoding of the file.
+         *
+         * @return An instance of JaSuggest
+         */
+        public JaSuggest buildFrom(@NonNull Path path, @NonNull Charset charset) {
+            try (Reader reader = Files.newBufferedReader(path, charset)) {
+                return buildFrom(reader);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
 
-        for (int i = 0; i < term.length(); i++) {
+        /**
+         * Creates a JaSuggest object from the lines of a Reader, with a term per line, adding the terms while reading.
+         * The Reader is not closed. If it cannot be read an UncheckedIOException will be thrown.
+         *
+         * @see #buildFrom(Path, Charset)
+         */
+        public JaSuggest buildFrom(@NonNull Reader reader) {
+            return build(new JaSuggest(this).from(reader));
+        }
 
-            current.putIfAbsent(term.charAt(i), new JaMap());
-            current = current.get(term.charAt(i));
+        /**
+         * Creates a JaSuggest object from an index file previously written with JaSuggest.writeTo().
+         * The file is memory mapped and the queries are answered directly from it, without loading the Trie in the heap.
+         * The 'ignoreCase' option is read from the file, the other options except the cache, the metrics and the infix index are ignored.
+         * If the file cannot be read an UncheckedIOException will be thrown.
+         *
+         * @param path The path of the index file.
+         *
+         * @return An instance of JaSuggest
+         */
+        public JaSuggest buildFromIndexFile(@NonNull Path path) {
+            JaSuggest jaSuggest = new JaSuggest(this).open(path);
+            if (infix) {
+                jaSuggest.infixIndex();
+            }
+            return jaSuggest;
+        }
 
-            if (!current.isLeaf() && lastLetterIndex == i) {
-                current.setLeaf(true);
-                if (prebuiltWords) {
-                    current.setTerm(term);
-                }
+        /**
+         * Estimates the heap memory of a JaSuggest built from the given terms with each build option,
+         * eg.: to decide if prebuiltWords() or compact() are worth it. The Trie is built once (with the 'ignoreCase'
+         * and 'parallelBuild' options of this builder), then frozen in each way. The cache is not included.
+         * All the passes use explicit stacks, so the length of the terms is not limited.
+         *
+         * @param terms The terms.
+         *
+         * @return The estimated size in bytes for each option. INFIX_INDEX is the additional size of withInfixIndex().
+         */
+        public Map<JaSuggestStats.Option, Long> projectMemory(@NonNull Iterable<String> terms) {
+            JaSuggestBuilder plain = new JaSuggestBuilder();
+            plain.ignoreCase = ignoreCase;
+            plain.buildPool = buildPool;
+            return plain.buildFrom(terms).projectMemory();
+        }
+
+        boolean isIgnoreCase() { return ignoreCase; }
+
+        /**
+         * @return true if every JaSuggest created by this builder uses the same JaCache instance.
+         */
+        boolean hasSharedCache() { return cache != null; }
+
+        private JaSuggest build(JaSuggest jaSuggest) {
+            if ((compact ? 1 : 0) + (radix ? 1 : 0) + (dawg ? 1 : 0) > 1) {
+                throw new IllegalStateException("The compact(), radix() and dawg() options cannot be combined.");
+            }
+            if (prebuiltWords && !compact && !dawg) {
+                jaSuggest.packTerms();
+            }
+            if (compact) {
+                jaSuggest.compact();
+            } else if (radix) {
+                jaSuggest.radix();
+            } else if (dawg) {
+                jaSuggest.dawg();
             }
+            if (infix) {
+                jaSuggest.infixIndex();
+            }
+            return jaSuggest;
         }
     }
 }
 
+/**
+ * Forwards the evictions of a cache to a JaMetricsListener. The notifiers of the same listener are equal, so the
+ * instances sharing a cache and a listener register it once, and the cache doesn't keep them alive.
+ */
+@EqualsAndHashCode
+class JaEvictionNotifier implements Consumer<JaCacheKey> {
+
+    private final JaMetricsListener listener;
+
+    JaEvictionNotifier(JaMetricsListener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void accept(JaCacheKey key) {
+        listener.onCacheEviction(key.getPrefix());
+    }
+}
+
+class JaQueryStats {
+    JaMetricsListener.CacheResult cacheResult;
+    int nodesVisited;
+}
+
 @Data
 @AllArgsConstructor
-class JaSolution {
+class JaWeightedSolution {
+    // When null the solution is a complete term
     private JaMap node;
     private String term;
+    private long weight;
 }
\ No newline at end of file
@@ -0,0 +1,168 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and a latency histogram collected from the queries of a JaSuggest.
+ *
+ * The counters are LongAdders, so updating them from many threads is cheap. Use snapshot() to read
+ * all the values at once (eg.: to export them periodically).
+ */
+public class JaSuggestMetrics implements JaMetricsListener {
+
+    // Bucket i counts the latencies in [2^(i-1), 2^i) nanoseconds (bucket 0 counts 0)
+    static final int LATENCY_BUCKETS = 64;
+
+    private final LongAdder queries = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheDerived = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder cacheCoalesced = new LongAdder();
+    private final LongAdder cacheEvictions = new LongAdder();
+    private final LongAdder nodesVisited = new LongAdder();
+    private final LongAdder results = new LongAdder();
+    private final LongAdder[] latencies = new LongAdder[LATENCY_BUCKETS];
+
+    public JaSuggestMetrics() {
+        for(int i = 0; i < latencies.length; ++i) {
+            latencies[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void onQuery(String prefix, int maxResults, CacheResult cacheResult, int nodesVisited, int results, long latencyNanos) {
+        queries.increment();
+
+        switch (cacheResult) {
+            case HIT: cacheHits.increment(); break;
+            case DERIVED: cacheDerived.increment(); break;
+            case MISS: cacheMisses.increment(); break;
+            case COALESCED: cacheCoalesced.increment(); break;
+            default: break;
+        }
+
+        this.nodesVisited.add(nodesVisited);
+        this.results.add(results);
+        latencies[LATENCY_BUCKETS - Long.numberOfLeadingZeros(Math.max(0, latencyNanos))].increment();
+    }
+
+    @Override
+    public void onCacheEviction(String prefix) {
+        cacheEvictions.increment();
+    }
+
+    /**
+     * Returns the current values of the metrics.
+     * The counters are read one by one while queries may be running, so they are not an atomic snapshot.
+     */
+    public Snapshot snapshot() {
+        long[] histogram = new long[LATENCY_BUCKETS];
+        for(int i = 0; i < histogram.length; ++i) {
+            histogram[i] = latencies[i].sum();
+        }
+        return new Snapshot(queries.sum(), cacheHits.sum(), cacheDerived.sum(), cacheMisses.sum(), cacheCoalesced.sum(),
+                            cacheEvictions.sum(), nodesVisited.sum(), results.sum(), histogram);
+    }
+
+    /**
+     * Sets all the metrics to 0.
+     */
+    public void reset() {
+        queries.reset();
+        cacheHits.reset();
+        cacheDerived.reset();
+        cacheMisses.reset();
+        cacheCoalesced.reset();
+        cacheEvictions.reset();
+        nodesVisited.reset();
+        results.reset();
+        for(LongAdder latency : latencies) {
+            latency.reset();
+        }
+    }
+
+    @Getter
+    public static class Snapshot {
+
+        private final long queries;
+        private final long cacheHits;
+        private final long cacheDerived;
+        private final long cacheMisses;
+        // The misses that waited for a concurrent call computing the same result
+        private final long cacheCoalesced;
+        private final long cacheEvictions;
+        private final long nodesVisited;
+        private final long results;
+        @Getter(AccessLevel.NONE)
+        private final long[] latencyHistogram;
+
+        Snapshot(long queries, long cacheHits, long cacheDerived, long cacheMisses, long cacheCoalesced, long cacheEvictions,
+                 long nodesVisited, long results, long[] latencyHistogram) {
+            this.queries = queries;
+            this.cacheHits = cacheHits;
+            this.cacheDerived = cacheDerived;
+            this.cacheMisses = cacheMisses;
+            this.cacheCoalesced = cacheCoalesced;
+            this.cacheEvictions = cacheEvictions;
+            this.nodesVisited = nodesVisited;
+            this.results = results;
+            this.latencyHistogram = latencyHistogram;
+        }
+
+        /**
+         * The ratio of the queries answered from the cache (including the derived results), between 0 and 1.
+         */
+        public double getCacheHitRatio() {
+            long lookups = cacheHits + cacheDerived + cacheMisses + cacheCoalesced;
+            return (lookups == 0) ? 0 : (double) (cacheHits + cacheDerived) / lookups;
+        }
+
+        /**
+         * Returns the number of queries per latency bucket: bucket i counts the latencies in [2^(i-1), 2^i) nanoseconds.
+         */
+        public long[] getLatencyHistogram() {
+            return latencyHistogram.clone();
+        }
+
+        /**
+         * Returns an upper bound of the given latency percentile, in nanoseconds (the upper limit of the bucket).
+         *
+         * @param percentile A value between 0 and 100 (eg.: 99.9).
+         */
+        public long latencyPercentile(double percentile) {
+            long total = 0;
+            for(long count : latencyHistogram) {
+                total += count;
+            }
+
+            long rank = (long) Math.ceil(total * percentile / 100.0);
+            long seen = 0;
+            for(int i = 0; i < latencyHistogram.length; ++i) {
+                seen += latencyHistogram[i];
+                if (seen >= rank && seen > 0) {
+                    return (i == 0) ? 0 : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+                }
+            }
+            return 0;
+        }
+    }
+}
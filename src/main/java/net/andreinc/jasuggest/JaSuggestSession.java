@@ -0,0 +1,166 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A typing session (eg.: one per input box) that keeps the path of visited nodes between keystrokes.
+ *
+ * Appending or deleting a character moves one node down or up the Trie, instead of walking again from the root,
+ * and suggestions() only traverses the sub-trie of the current node.
+ * If terms are added or removed from the JaSuggest in the meantime the path is recomputed on the next call.
+ *
+ * For frozen (compact(), radix(), dawg(), index file) instances the session only keeps the prefix, and each
+ * call to suggestions() is a regular findSuggestions().
+ *
+ * A session is not thread-safe.
+ */
+public class JaSuggestSession {
+
+    private final JaSuggest jaSuggest;
+
+    // The typed prefix, lower-cased if 'ignoreCase' is active
+    private final StringBuilder prefix = new StringBuilder();
+
+    // path.get(i) is the node reached after the first i characters of the prefix, null if it doesn't exist
+    private final List<JaMap> path = new ArrayList<>();
+
+    // The length of the prefix after each typed character (lower-casing can change the length)
+    private int[] marks = new int[16];
+    private int typed = 0;
+
+    JaSuggestSession(JaSuggest jaSuggest) {
+        this.jaSuggest = jaSuggest;
+        this.path.add(jaSuggest.root());
+    }
+
+    /**
+     * Appends a character to the current prefix.
+     *
+     * @return this session.
+     */
+    public JaSuggestSession append(char c) {
+        if (jaSuggest.isIgnoreCase()) {
+            String lower = String.valueOf(c).toLowerCase();
+            for(int i = 0; i < lower.length(); ++i) {
+                descend(lower.charAt(i));
+            }
+        } else {
+            descend(c);
+        }
+
+        if (typed == marks.length) {
+            marks = Arrays.copyOf(marks, typed * 2);
+        }
+        marks[typed++] = prefix.length();
+
+        return this;
+    }
+
+    /**
+     * Appends all the characters to the current prefix.
+     *
+     * @return this session.
+     */
+    public JaSuggestSession append(@NonNull CharSequence chars) {
+        for(int i = 0; i < chars.length(); ++i) {
+            append(chars.charAt(i));
+        }
+        return this;
+    }
+
+    /**
+     * Removes the last typed character.
+     *
+     * @return false if the prefix was already empty.
+     */
+    public boolean backspace() {
+        if (typed == 0) {
+            return false;
+        }
+
+        int length = (--typed == 0) ? 0 : marks[typed - 1];
+        prefix.setLength(length);
+        while (path.size() > length + 1) {
+            path.remove(path.size() - 1);
+        }
+
+        return true;
+    }
+
+    /**
+     * Clears the current prefix.
+     */
+    public void reset() {
+        typed = 0;
+        prefix.setLength(0);
+        path.clear();
+        path.add(jaSuggest.root());
+    }
+
+    /**
+     * Returns the current prefix (lower-cased if 'ignoreCase' is active).
+     */
+    public String getPrefix() {
+        return prefix.toString();
+    }
+
+    /**
+     * Returns the first 'maxResults' sorted suggestions for the current prefix.
+     *
+     * @param maxResults The maximum number of results.
+     *
+     * @return A sorted List of suggestions.
+     */
+    public List<String> suggestions(int maxResults) {
+        JaMap root = jaSuggest.root();
+
+        if (root == null) {
+            return jaSuggest.findSuggestions(prefix.toString(), maxResults);
+        }
+
+        if (root != path.get(0)) {
+            // The Trie was modified since the path was computed
+            path.clear();
+            path.add(root);
+            for(int i = 0; i < prefix.length(); ++i) {
+                JaMap node = path.get(i);
+                path.add((node == null) ? null : node.get(prefix.charAt(i)));
+            }
+        }
+
+        List<String> list = new ArrayList<>();
+        JaMap local = path.get(path.size() - 1);
+
+        if (local != null) {
+            jaSuggest.findSuggestions(local, prefix.toString(), maxResults, true, list);
+        }
+
+        return list;
+    }
+
+    private void descend(char c) {
+        JaMap node = path.get(path.size() - 1);
+        prefix.append(c);
+        path.add((node == null) ? null : node.get(c));
+    }
+}
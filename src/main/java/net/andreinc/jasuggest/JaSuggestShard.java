@@ -0,0 +1,38 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import java.util.List;
+
+/**
+ * A shard of a JaShardedSuggest: answers bounded, sorted prefix queries for a subset of the terms.
+ *
+ * This is the transport boundary of a sharded index. JaLocalShard queries a JaSuggest from the same JVM,
+ * implementations calling a remote process can be plugged in instead.
+ */
+public interface JaSuggestShard {
+
+    /**
+     * Returns the first 'maxResults' sorted suggestions for the given prefix.
+     *
+     * @param prefix The search prefix.
+     * @param maxResults The maximum number of results.
+     *
+     * @return A sorted List of suggestions.
+     */
+    List<String> findSuggestions(String prefix, int maxResults);
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Lazily traverses a sub-trie in ascending order.
+ *
+ * The pending work is a deque of sub-tries (or single terms) sorted in ascending order, the next one being first.
+ * Splitting hands the first half of them to a new Spliterator, so a parallel Stream processes different
+ * sub-tries on different threads while keeping the encounter order.
+ */
+final class JaSuggestSpliterator implements Spliterator<String> {
+
+    // A JaSolution without a node is a term waiting to be returned
+    private final Deque<JaSolution> pending;
+
+    JaSuggestSpliterator(JaMap local, String prefix) {
+        this.pending = new ArrayDeque<>();
+        // The prefix itself is never a suggestion, so only the children are added
+        pushChildren(local, prefix);
+    }
+
+    private JaSuggestSpliterator(Deque<JaSolution> pending) {
+        this.pending = pending;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+        while (!pending.isEmpty()) {
+            JaSolution current = pending.pollFirst();
+            JaMap node = current.getNode();
+
+            if (node == null) {
+                action.accept(current.getTerm());
+                return true;
+            }
+
+            pushChildren(node, current.getTerm());
+
+            if (node.isLeaf()) {
+                action.accept(current.getTerm());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+        if (pending.size() == 1 && pending.peekFirst().getNode() != null) {
+            // Replace the only sub-trie with its term and the sub-tries of its children
+            JaSolution current = pending.pollFirst();
+            pushChildren(current.getNode(), current.getTerm());
+            if (current.getNode().isLeaf()) {
+                pending.addFirst(new JaSolution(null, current.getTerm()));
+            }
+        }
+
+        if (pending.size() < 2) {
+            return null;
+        }
+
+        Deque<JaSolution> first = new ArrayDeque<>();
+        for(int i = pending.size() / 2; i > 0; --i) {
+            first.addLast(pending.pollFirst());
+        }
+
+        return new JaSuggestSpliterator(first);
+    }
+
+    @Override
+    public long estimateSize() {
+        return pending.isEmpty() ? 0 : Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        // The root of the Trie is never modified, new terms are added to a copy
+        return ORDERED | SORTED | DISTINCT | NONNULL | IMMUTABLE;
+    }
+
+    @Override
+    public Comparator<? super String> getComparator() {
+        // Natural order
+        return null;
+    }
+
+    private void pushChildren(JaMap node, String term) {
+        char[] keys = node.sortedKeys();
+        // Added in reverse order in front of the deque, so the smallest character is first
+        for(int i = keys.length - 1; i >= 0; --i) {
+            pending.addFirst(new JaSolution(node.get(keys[i]), term + keys[i]));
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * The structure and the estimated memory footprint of a JaSuggest, see JaSuggest.stats().
+ *
+ * The depth of a node is its number of edges from the root (for a DAWG state, the shortest one). The histograms are
+ * indexed by the depth and by the number of children, and hold the number of nodes.
+ *
+ * The sizes are estimations of the retained heap, in bytes, for a 64-bit JVM with compressed references.
+ * The pages of an index file are mapped outside the heap, they are counted by getMappedBytes().
+ */
+@Getter
+public class JaSuggestStats {
+
+    /**
+     * The build options of JaSuggestBuilder.projectMemory().
+     */
+    public enum Option {
+        /** The default HashMap based Trie. */
+        TRIE,
+        /** The default Trie with prebuiltWords(): the Trie and the packed terms. */
+        PREBUILT_WORDS,
+        COMPACT,
+        RADIX,
+        /** radix().prebuiltWords(): the radix Trie keeping the id of each term, and the packed terms. */
+        RADIX_PREBUILT_WORDS,
+        DAWG,
+        /** The additional memory of withInfixIndex(). */
+        INFIX_INDEX
+    }
+
+    // "trie", "compact", "radix", "dawg" or "mapped"
+    private final String engine;
+    private final long nodes;
+    // The nodes marking the end of a term
+    private final long terms;
+    // The nodes without children
+    private final long leaves;
+    private final int maxDepth;
+    @Getter(AccessLevel.NONE)
+    private final long[] depthHistogram;
+    @Getter(AccessLevel.NONE)
+    private final long[] fanOutHistogram;
+
+    // The Trie (or the frozen index), including the categories
+    private final long indexBytes;
+    // The packed terms of 'prebuiltWords'
+    private final long termBytes;
+    private final long infixIndexBytes;
+    private final int cacheEntries;
+    private final long cacheBytes;
+    private final long mappedBytes;
+
+    private JaSuggestStats(String engine, Collector collector, long indexBytes, long termBytes, long infixIndexBytes,
+                           int cacheEntries, long cacheBytes, long mappedBytes) {
+        this.engine = engine;
+        this.nodes = collector.nodes;
+        this.terms = collector.terms;
+        this.leaves = collector.leaves;
+        this.maxDepth = collector.maxDepth;
+        this.depthHistogram = Arrays.copyOf(collector.depths, collector.maxDepth + 1);
+        this.fanOutHistogram = Arrays.copyOf(collector.fanOuts, collector.maxFanOut + 1);
+        this.indexBytes = indexBytes;
+        this.termBytes = termBytes;
+        this.infixIndexBytes = infixIndexBytes;
+        this.cacheEntries = cacheEntries;
+        this.cacheBytes = cacheBytes;
+        this.mappedBytes = mappedBytes;
+    }
+
+    /**
+     * @return The number of nodes at each depth.
+     */
+    public long[] getDepthHistogram() { return depthHistogram.clone(); }
+
+    /**
+     * @return The number of nodes for each number of children.
+     */
+    public long[] getFanOutHistogram() { return fanOutHistogram.clone(); }
+
+    /**
+     * @return The average number of children of the nodes having children.
+     */
+    public double getAverageFanOut() {
+        long parents = nodes - leaves;
+        long edges = 0;
+        for(int i = 1; i < fanOutHistogram.length; ++i) {
+            edges += i * fanOutHistogram[i];
+        }
+        return (parents == 0) ? 0 : (double) edges / parents;
+    }
+
+    /**
+     * @return The estimated heap memory of the index, the terms, the infix index and the cache.
+     */
+    public long getTotalBytes() {
+        return indexBytes + termBytes + infixIndexBytes + cacheBytes;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("engine: %s, nodes: %d, terms: %d, leaves: %d, maxDepth: %d, averageFanOut: %.2f, "
+                             + "indexBytes: %d, termBytes: %d, infixIndexBytes: %d, cacheEntries: %d, cacheBytes: %d, "
+                             + "mappedBytes: %d, totalBytes: %d",
+                             engine, nodes, terms, leaves, maxDepth, getAverageFanOut(), indexBytes, termBytes,
+                             infixIndexBytes, cacheEntries, cacheBytes, mappedBytes, getTotalBytes());
+    }
+
+    /**
+     * The size of an object or an array, rounded up to a multiple of 8 bytes.
+     */
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    static long arrayBytes(long length, int elementSize) {
+        return align(16 + length * elementSize);
+    }
+
+    /**
+     * Counts the nodes visited by a traversal of an index.
+     */
+    static final class Collector {
+
+        private long nodes;
+        private long terms;
+        private long leaves;
+        private int maxDepth;
+        private int maxFanOut;
+        private long[] depths = new long[32];
+        private long[] fanOuts = new long[32];
+
+        void node(int depth, int children, boolean term) {
+            nodes++;
+            if (term) {
+                terms++;
+            }
+            if (children == 0) {
+                leaves++;
+            }
+            if (depth >= depths.length) {
+                depths = Arrays.copyOf(depths, Math.max(depths.length * 2, depth + 1));
+            }
+            if (children >= fanOuts.length) {
+                fanOuts = Arrays.copyOf(fanOuts, Math.max(fanOuts.length * 2, children + 1));
+            }
+            depths[depth]++;
+            fanOuts[children]++;
+            maxDepth = Math.max(maxDepth, depth);
+            maxFanOut = Math.max(maxFanOut, children);
+        }
+
+        JaSuggestStats build(String engine, long indexBytes, long termBytes, long infixIndexBytes,
+                             int cacheEntries, long cacheBytes, long mappedBytes) {
+            return new JaSuggestStats(engine, this, indexBytes, termBytes, infixIndexBytes, cacheEntries, cacheBytes, mappedBytes);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+/**
+ * The terms of a 'prebuiltWords' Trie, packed in a single char[]: the leaves keep the id of their term
+ * instead of a String, so the characters are stored once, without a String (and its array) per term.
+ *
+ * The terms are appended: the ones added after the Trie was built get the next ids, and the removed ones keep
+ * their space. Appending is not thread-safe (the writes of JaSuggest are serialized), but the terms can be read
+ * concurrently: an id is only visible to the readers after the new version of the Trie is published.
+ */
+final class JaTermDictionary {
+
+    // The characters of term 'i' are chars[offsets[i]] ... chars[offsets[i + 1] - 1]
+    private volatile char[] chars;
+    private volatile int[] offsets;
+    private int count;
+
+    private JaTermDictionary(int capacity) {
+        this.chars = new char[Math.max(16, capacity)];
+        this.offsets = new int[16];
+    }
+
+    /**
+     * Creates the dictionary of all the terms of the Trie, and sets the ids on its leaves (in ascending order).
+     * The Trie is walked depth-first with an explicit stack, so the length of the terms is not limited.
+     */
+    static JaTermDictionary pack(JaMap root) {
+        JaTermDictionary dictionary = new JaTermDictionary(1024);
+        StringBuilder term = new StringBuilder();
+        Deque<JaMap> nodes = new ArrayDeque<>();
+        // The depth of each node on the stack, and the character leading to it
+        Deque<Integer> depths = new ArrayDeque<>();
+        Deque<Character> labels = new ArrayDeque<>();
+        nodes.push(root);
+        depths.push(0);
+        labels.push('\u0000');
+
+        while (!nodes.isEmpty()) {
+            JaMap node = nodes.pop();
+            int depth = depths.pop();
+            char label = labels.pop();
+
+            if (depth > 0) {
+                term.setLength(depth - 1);
+                term.append(label);
+            }
+            if (node.isLeaf() && depth > 0) {
+                node.setTermId(dictionary.add(term));
+            }
+
+            // Pushed in reverse order so the smallest character is popped first
+            char[] keys = node.sortedKeys();
+            for(int i = keys.length - 1; i >= 0; --i) {
+                nodes.push(node.get(keys[i]));
+                depths.push(depth + 1);
+                labels.push(keys[i]);
+            }
+        }
+
+        return dictionary;
+    }
+
+    /**
+     * @return The id of the term.
+     */
+    int add(CharSequence term) {
+        char[] chars = this.chars;
+        int[] offsets = this.offsets;
+        int start = offsets[count];
+
+        if (chars.length < start + term.length()) {
+            chars = Arrays.copyOf(chars, Math.max(chars.length * 2, start + term.length()));
+        }
+        if (offsets.length < count + 2) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+
+        for(int i = 0; i < term.length(); ++i) {
+            chars[start + i] = term.charAt(i);
+        }
+        offsets[count + 1] = start + term.length();
+
+        // The characters are published before the offsets pointing to them
+        this.chars = chars;
+        this.offsets = offsets;
+        return count++;
+    }
+
+    String term(int id) {
+        int[] offsets = this.offsets;
+        return new String(chars, offsets[id], offsets[id + 1] - offsets[id]);
+    }
+
+    /**
+     * Points the view to the term, without copying it.
+     */
+    CharSequence term(int id, View view) {
+        int[] offsets = this.offsets;
+        view.chars = chars;
+        view.offset = offsets[id];
+        view.length = offsets[id + 1] - offsets[id];
+        return view;
+    }
+
+    int size() { return count; }
+
+    /**
+     * @return An estimation of the heap memory used by the dictionary, in bytes.
+     */
+    long memorySize() {
+        return 2 * 16 + 2L * chars.length + 4L * offsets.length;
+    }
+
+    /**
+     * A term of the dictionary, seen as a CharSequence.
+     */
+    static final class View implements CharSequence {
+
+        private char[] chars;
+        private int offset;
+        private int length;
+
+        @Override
+        public int length() { return length; }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length) {
+                throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+            }
+            return chars[offset + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            if (start < 0 || end > length || start > end) {
+                throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + length);
+            }
+            return new String(chars, offset + start, end - start);
+        }
+
+        @Override
+        public String toString() { return new String(chars, offset, length); }
+    }
+}
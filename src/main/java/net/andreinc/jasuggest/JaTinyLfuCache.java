@@ -0,0 +1,251 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import lombok.NonNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * A JaCache bounded by the estimated size of the cached results in bytes, instead of their number:
+ * the results for "a" can hold thousands of terms, the results for "usel" only one.
+ *
+ * The admission is frequency-aware (TinyLFU): the lookups are counted in a small Count-Min sketch, and when the
+ * cache is full a new result replaces the least recently used ones only if it was looked up more often than each
+ * of them. This way the rarely queried prefixes can't flush the popular ones. The counters are halved periodically,
+ * so the old popularity fades away.
+ */
+public class JaTinyLfuCache implements JaCache {
+
+    private static final int SKETCH_DEPTH = 4;
+    private static final int[] SEEDS = { 0x9E3779B9, 0x85EBCA6B, 0xC2B2AE35, 0x27D4EB2F };
+    private static final int MAX_FREQUENCY = 15;
+
+    private final long maxBytes;
+    private final Object lock = new Object();
+
+    // In access order: the first entry is the least recently used
+    private final LinkedHashMap<JaCacheKey, List<String>> map = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<JaCacheKey, Long> weights = new HashMap<>();
+    private long totalBytes = 0;
+
+    private final byte[][] sketch;
+    private final int sketchMask;
+    // The counters are halved when 'additions' reaches 'sampleSize'
+    private final int sampleSize;
+    private int additions = 0;
+
+    private final CopyOnWriteArrayList<Consumer<JaCacheKey>> evictionListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * @param maxBytes The maximum estimated size of the cached results, see estimateBytes().
+     */
+    public JaTinyLfuCache(long maxBytes) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes should be positive.");
+        }
+        this.maxBytes = maxBytes;
+
+        // Two counters per entry, for entries of ~1KB
+        int counters = Integer.highestOneBit((int) Math.min(1 << 20, Math.max(64, maxBytes / 1024))) * 2;
+        this.sketch = new byte[SKETCH_DEPTH][counters];
+        this.sketchMask = counters - 1;
+        this.sampleSize = counters * 10;
+    }
+
+    /**
+     * An estimation of the heap memory used by a cached result, in bytes: the key, the list and its Strings.
+     */
+    public static long estimateBytes(JaCacheKey key, List<String> value) {
+        long bytes = 64 + 2L * key.getPrefix().length() + 24 + 4L * value.size();
+        for(String term : value) {
+            bytes += 40 + 2L * term.length();
+        }
+        return bytes;
+    }
+
+    public long getMaxBytes() { return maxBytes; }
+
+    /**
+     * @return The estimated size of the cached results, in bytes.
+     */
+    public long getTotalBytes() {
+        synchronized (lock) {
+            return totalBytes;
+        }
+    }
+
+    @Override
+    public List<String> get(JaCacheKey key) {
+        synchronized (lock) {
+            increment(key);
+            return map.get(key);
+        }
+    }
+
+    /**
+     * Doesn't count the lookup in the sketch. Like get(), it makes the entry the most recently used.
+     */
+    @Override
+    public List<String> peek(JaCacheKey key) {
+        synchronized (lock) {
+            return map.get(key);
+        }
+    }
+
+    @Override
+    public void put(JaCacheKey key, List<String> value) {
+        long bytes = estimateBytes(key, value);
+
+        synchronized (lock) {
+            if (bytes > maxBytes) {
+                return;
+            }
+
+            // The value replaced (if any) is only removed once the new one is admitted
+            Long replaced = weights.get(key);
+            long needed = totalBytes - ((replaced != null) ? replaced : 0) + bytes - maxBytes;
+
+            // Counts the least recently used entries to evict, rejecting the candidate if one of them is more popular
+            int frequency = frequency(key);
+            int victims = 0;
+            for(Iterator<JaCacheKey> it = map.keySet().iterator(); needed > 0 && it.hasNext(); ) {
+                JaCacheKey victim = it.next();
+                if (victim.equals(key)) {
+                    continue;
+                }
+                if (frequency(victim) >= frequency) {
+                    return;
+                }
+                needed -= weights.get(victim);
+                victims++;
+            }
+
+            remove(key);
+
+            Iterator<JaCacheKey> it = map.keySet().iterator();
+            for(int i = 0; i < victims; ++i) {
+                JaCacheKey victim = it.next();
+                it.remove();
+                totalBytes -= weights.remove(victim);
+                for(Consumer<JaCacheKey> listener : evictionListeners) {
+                    listener.accept(victim);
+                }
+            }
+
+            map.put(key, value);
+            weights.put(key, bytes);
+            totalBytes += bytes;
+        }
+    }
+
+    @Override
+    public void remove(JaCacheKey key) {
+        synchronized (lock) {
+            if (map.remove(key) != null) {
+                totalBytes -= weights.remove(key);
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        synchronized (lock) {
+            return map.size();
+        }
+    }
+
+    @Override
+    public Map<JaCacheKey, List<String>> snapshot() {
+        synchronized (lock) {
+            return new HashMap<>(map);
+        }
+    }
+
+    @Override
+    public void addEvictionListener(@NonNull Consumer<JaCacheKey> listener) {
+        evictionListeners.addIfAbsent(listener);
+    }
+
+    /**
+     * Returns up to 'n' cached keys, the most frequently looked up first.
+     */
+    @Override
+    public List<JaCacheKey> hottestKeys(int n) {
+        List<JaCacheKey> keys;
+        Map<JaCacheKey, Integer> frequencies = new HashMap<>();
+        synchronized (lock) {
+            keys = new ArrayList<>(map.keySet());
+            for(JaCacheKey key : keys) {
+                frequencies.put(key, frequency(key));
+            }
+        }
+        keys.sort(Comparator.comparing((JaCacheKey key) -> -frequencies.get(key))
+                            .thenComparingInt(key -> key.getPrefix().length()));
+        return new ArrayList<>(keys.subList(0, Math.min(Math.max(n, 0), keys.size())));
+    }
+
+    /**
+     * The estimated number of lookups of the key (up to 15).
+     */
+    int frequency(JaCacheKey key) {
+        int hash = key.hashCode();
+        int frequency = MAX_FREQUENCY;
+        for(int i = 0; i < SKETCH_DEPTH; ++i) {
+            frequency = Math.min(frequency, sketch[i][index(hash, i)]);
+        }
+        return frequency;
+    }
+
+    private void increment(JaCacheKey key) {
+        int hash = key.hashCode();
+        int frequency = frequency(key);
+        if (frequency == MAX_FREQUENCY) {
+            return;
+        }
+
+        // Conservative update: only the smallest counters are incremented
+        for(int i = 0; i < SKETCH_DEPTH; ++i) {
+            int index = index(hash, i);
+            if (sketch[i][index] == frequency) {
+                sketch[i][index]++;
+            }
+        }
+
+        if (++additions == sampleSize) {
+            for(byte[] row : sketch) {
+                for(int j = 0; j < row.length; ++j) {
+                    row[j] >>= 1;
+                }
+            }
+            additions /= 2;
+        }
+    }
+
+    private int index(int hash, int i) {
+        int h = hash * SEEDS[i];
+        return (h ^ (h >>> 16)) & sketchMask;
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import java.util.Arrays;
+
+/**
+ * The state of a traversal, reused by the queries running on the same thread: the characters of the current term
+ * and the stack of the nodes left to visit (with their depth and the character leading to them).
+ * The frozen indexes push the ids of their nodes (or arcs) in 'ids', or their JaRadixNodes in 'radixNodes'.
+ *
+ * It's also the CharSequence given to the sinks: a view over the current term, valid until the sink returns.
+ */
+final class JaTraversal implements CharSequence {
+
+    private static final ThreadLocal<JaTraversal> CURRENT = ThreadLocal.withInitial(JaTraversal::new);
+
+    char[] chars = new char[64];
+    int length;
+
+    JaMap[] nodes = new JaMap[64];
+    int[] depths = new int[64];
+    char[] labels = new char[64];
+    int[] ids = new int[64];
+    JaRadixIndex.JaRadixNode[] radixNodes = new JaRadixIndex.JaRadixNode[64];
+
+    // The view given to the sinks for the terms of a JaTermDictionary
+    final JaTermDictionary.View termView = new JaTermDictionary.View();
+
+    private boolean inUse;
+
+    /**
+     * Returns the traversal of the current thread. If it is already used (eg.: a sink running another query),
+     * a new one is returned.
+     */
+    static JaTraversal acquire() {
+        JaTraversal traversal = CURRENT.get();
+        if (traversal.inUse) {
+            return new JaTraversal();
+        }
+        traversal.inUse = true;
+        return traversal;
+    }
+
+    /**
+     * @param top The index of the last used element of the stack, its references to the nodes are cleared.
+     */
+    void release(int top) {
+        if (top >= 0) {
+            // So the old versions of the Trie (and the discarded indexes) can be collected
+            Arrays.fill(nodes, 0, Math.min(top + 1, nodes.length), null);
+            Arrays.fill(radixNodes, 0, Math.min(top + 1, radixNodes.length), null);
+        }
+        inUse = false;
+    }
+
+    void start(String prefix) {
+        ensureChars(prefix.length());
+        prefix.getChars(0, prefix.length(), chars, 0);
+        length = prefix.length();
+    }
+
+    void ensureChars(int capacity) {
+        if (chars.length < capacity) {
+            chars = Arrays.copyOf(chars, capacity * 2);
+        }
+    }
+
+    void ensureStack(int capacity) {
+        if (nodes.length < capacity) {
+            int newCapacity = Math.max(nodes.length * 2, capacity);
+            nodes = Arrays.copyOf(nodes, newCapacity);
+            depths = Arrays.copyOf(depths, newCapacity);
+            labels = Arrays.copyOf(labels, newCapacity);
+            ids = Arrays.copyOf(ids, newCapacity);
+            radixNodes = Arrays.copyOf(radixNodes, newCapacity);
+        }
+    }
+
+    @Override
+    public int length() { return length; }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+        }
+        return chars[index];
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) {
+            throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + length);
+        }
+        return new String(chars, start, end - start);
+    }
+
+    @Override
+    public String toString() { return new String(chars, 0, length); }
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Inserts terms in a Trie, remembering the path of the previous term.
+ *
+ * Only the part of a term that is not shared with the previous one needs to be looked up in the HashMaps,
+ * so when the input is sorted most of the path comes for free. The result is the same for any order.
+ */
+final class JaTrieBuilder {
+
+    // Ranges with fewer terms are built by a single thread
+    private static final int PARALLEL_THRESHOLD = 2048;
+
+    // The root represents the first 'offset' characters, shared by all the terms added
+    private final int offset;
+
+    // path[i] is the node reached after the first (offset + i) characters of 'previous'
+    private JaMap[] path = new JaMap[32];
+    // A copy of the previous term, so the term given to add() can be a reused buffer
+    private char[] previous = new char[32];
+    private int previousLength = 0;
+
+    JaTrieBuilder(JaMap root) {
+        this(root, 0);
+    }
+
+    private JaTrieBuilder(JaMap root, int offset) {
+        this.offset = offset;
+        this.path[0] = root;
+    }
+
+    /**
+     * Adds a term with the given weight. If the term already exists it keeps the biggest of the two weights.
+     * The maximum weight is propagated on all the nodes of the path.
+     */
+    void add(CharSequence term, long weight) {
+        if (term.length() == 0) {
+            return;
+        }
+
+        int shared = offset;
+        int max = Math.min(term.length(), previousLength);
+        while (shared < max && term.charAt(shared) == previous[shared]) {
+            shared++;
+        }
+
+        if (path.length <= term.length() - offset) {
+            path = Arrays.copyOf(path, (term.length() - offset) * 2);
+        }
+
+        for(int i = 0; i <= shared - offset; ++i) {
+            path[i].updateMaxWeight(weight);
+        }
+
+        JaMap current = path[shared - offset];
+        for(int i = shared; i < term.length(); ++i) {
+            JaMap child = current.get(term.charAt(i));
+            if (child == null) {
+                child = current.newNode();
+                current.put(term.charAt(i), child);
+            }
+            child.updateMaxWeight(weight);
+            current = child;
+            path[i + 1 - offset] = current;
+        }
+
+        current.markLeaf(weight);
+
+        // The first 'shared' characters are already there
+        if (previous.length < term.length()) {
+            previous = Arrays.copyOf(previous, term.length() * 2);
+        }
+        for(int i = shared; i < term.length(); ++i) {
+            previous[i] = term.charAt(i);
+        }
+        previousLength = term.length();
+    }
+
+    /**
+     * Builds a Trie from the given terms, which must be sorted, on the given ForkJoinPool.
+     * The terms are split in ranges sharing the same leading characters, each range becoming a sub-trie
+     * built by a different task.
+     *
+     * @param weights The weights of the terms, or null if all the weights are 0.
+     * @param prototype A node of the kind of the nodes to create (see JaMap.newNode()).
+     */
+    static JaMap buildParallel(String[] sortedTerms, Map<String, Long> weights, JaMap prototype, ForkJoinPool pool) {
+        return pool.invoke(new JaTrieBuildTask(sortedTerms, weights, prototype, 0, sortedTerms.length, 0));
+    }
+
+    static boolean isSorted(String[] terms) {
+        for(int i = 1; i < terms.length; ++i) {
+            if (terms[i - 1].compareTo(terms[i]) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Builds the sub-trie for terms[from] ... terms[to - 1], which share their first 'depth' characters.
+     */
+    private static final class JaTrieBuildTask extends RecursiveTask<JaMap> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final String[] terms;
+        private final Map<String, Long> weights;
+        private final JaMap prototype;
+        private final int from;
+        private final int to;
+        private final int depth;
+
+        JaTrieBuildTask(String[] terms, Map<String, Long> weights, JaMap prototype, int from, int to, int depth) {
+            this.terms = terms;
+            this.weights = weights;
+            this.prototype = prototype;
+            this.from = from;
+            this.to = to;
+            this.depth = depth;
+        }
+
+        @Override
+        protected JaMap compute() {
+            JaMap node = prototype.newNode();
+
+            if (to - from <= PARALLEL_THRESHOLD) {
+                JaTrieBuilder builder = new JaTrieBuilder(node, depth);
+                for(int i = from; i < to; ++i) {
+                    builder.add(terms[i], weightOf(terms[i]));
+                }
+                return node;
+            }
+
+            int i = from;
+
+            // Being sorted, the terms ending on this node come first
+            while (i < to && terms[i].length() == depth) {
+                if (depth > 0) {
+                    node.markLeaf(weightOf(terms[i]));
+                }
+                i++;
+            }
+
+            List<JaTrieBuildTask> tasks = new ArrayList<>();
+            while (i < to) {
+                char c = terms[i].charAt(depth);
+                int j = i + 1;
+                while (j < to && terms[j].charAt(depth) == c) {
+                    j++;
+                }
+                tasks.add(new JaTrieBuildTask(terms, weights, prototype, i, j, depth + 1));
+                i = j;
+            }
+
+            invokeAll(tasks);
+
+            node.updateMaxWeight(node.getWeight());
+            for(JaTrieBuildTask task : tasks) {
+                JaMap child = task.join();
+                node.put(terms[task.from].charAt(depth), child);
+                node.updateMaxWeight(child.getMaxWeight());
+            }
+
+            return node;
+        }
+
+        private long weightOf(String term) {
+            return (weights == null) ? 0 : weights.get(term);
+        }
+    }
+}
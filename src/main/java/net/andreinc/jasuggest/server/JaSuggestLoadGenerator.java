@@ -0,0 +1,253 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest.server;
+
+import lombok.NonNull;
+import net.andreinc.jasuggest.JaSuggest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A closed-loop load generator for a JaSuggestServer: each client sends a request with a random prefix,
+ * waits for the answer and sends the next one, until the time is up. The throughput and the latency percentiles
+ * are measured on the client side.
+ *
+ * Running the main method starts a server on a free port for the words of a file (one per line)
+ * and measures it on the same box:
+ *
+ * java net.andreinc.jasuggest.server.JaSuggestLoadGenerator words.txt [clients] [seconds] [maxResults]
+ */
+public final class JaSuggestLoadGenerator {
+
+    private static final byte[] DISCARD = new byte[8192];
+
+    private JaSuggestLoadGenerator() {}
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: JaSuggestLoadGenerator <words file> [clients] [seconds] [maxResults]");
+            System.exit(1);
+        }
+        List<String> words = Files.readAllLines(Paths.get(args[0]), UTF_8);
+        int clients = (args.length > 1) ? Integer.parseInt(args[1]) : 64;
+        int seconds = (args.length > 2) ? Integer.parseInt(args[2]) : 10;
+        int maxResults = (args.length > 3) ? Integer.parseInt(args[3]) : 10;
+
+        JaSuggest jaSuggest = JaSuggest.builder().ignoreCase().buildFrom(words);
+        try (JaSuggestServer server = JaSuggestServer.builder().host("127.0.0.1").port(0).tcpNoDelay().start(jaSuggest)) {
+            URI endpoint = URI.create("http://127.0.0.1:" + server.getPort() + "/suggest");
+            // Warm-up
+            run(endpoint, prefixes(words), maxResults, clients, Math.max(1, seconds / 5), TimeUnit.SECONDS);
+            Report report = run(endpoint, prefixes(words), maxResults, clients, seconds, TimeUnit.SECONDS);
+            System.out.println(report);
+            System.out.println("coalesced requests: " + server.getCoalesced() + " / " + server.getRequests());
+        }
+    }
+
+    /**
+     * The prefixes of 1 to 3 characters of the words, so the popular ones are queried concurrently.
+     */
+    static List<String> prefixes(List<String> words) {
+        Set<String> prefixes = new LinkedHashSet<>();
+        for(String word : words) {
+            for(int length = 1; length <= Math.min(3, word.length()); ++length) {
+                prefixes.add(word.substring(0, length));
+            }
+        }
+        return new ArrayList<>(prefixes);
+    }
+
+    /**
+     * Sends requests to the endpoint from concurrent clients (on virtual threads when the JVM supports them).
+     *
+     * @param endpoint The URI of the /suggest endpoint (eg.: http://localhost:8080/suggest).
+     * @param prefixes The prefixes queried, picked randomly.
+     * @param maxResults The 'max' parameter of the requests.
+     * @param clients The number of concurrent clients.
+     * @param duration How long the requests are sent.
+     * @param unit The unit of the duration.
+     *
+     * @return The throughput and the latencies of the successful requests.
+     */
+    public static Report run(@NonNull URI endpoint, @NonNull List<String> prefixes, int maxResults,
+                             int clients, long duration, @NonNull TimeUnit unit) {
+        if (prefixes.isEmpty()) {
+            throw new IllegalArgumentException("At least one prefix is needed.");
+        }
+        if (clients < 1) {
+            throw new IllegalArgumentException("The number of clients should be at least 1.");
+        }
+
+        ExecutorService executor = JaSuggestServer.newExecutor("jasuggest-load");
+        long start = System.nanoTime();
+        long deadline = start + unit.toNanos(duration);
+        List<Future<Client>> futures = new ArrayList<>(clients);
+        try {
+            for(int i = 0; i < clients; ++i) {
+                futures.add(executor.submit(() -> new Client().run(endpoint, prefixes, maxResults, deadline)));
+            }
+
+            long[] latencies = new long[0];
+            long errors = 0;
+            for(Future<Client> future : futures) {
+                Client client = future.get();
+                int from = latencies.length;
+                latencies = Arrays.copyOf(latencies, from + client.count);
+                System.arraycopy(client.latencies, 0, latencies, from, client.count);
+                errors += client.errors;
+            }
+            Arrays.sort(latencies);
+            return new Report(latencies, errors, System.nanoTime() - start);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static final class Client {
+
+        long[] latencies = new long[1024];
+        int count = 0;
+        long errors = 0;
+
+        Client run(URI endpoint, List<String> prefixes, int maxResults, long deadline) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (System.nanoTime() < deadline) {
+                URL url = url(endpoint, prefixes.get(random.nextInt(prefixes.size())), maxResults);
+                long start = System.nanoTime();
+                if (get(url)) {
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - start;
+                } else {
+                    errors++;
+                }
+            }
+            return this;
+        }
+
+        private static URL url(URI endpoint, String prefix, int maxResults) {
+            try {
+                return new URL(endpoint + "?prefix=" + URLEncoder.encode(prefix, "UTF-8") + "&max=" + maxResults);
+            } catch (UnsupportedEncodingException e) {
+                throw new IllegalStateException(e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private static boolean get(URL url) {
+            try {
+                HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+                int status = connection.getResponseCode();
+                // The body is read fully, so the connection is kept alive for the next request
+                try (InputStream in = (status < 400) ? connection.getInputStream() : connection.getErrorStream()) {
+                    while (in != null && in.read(DISCARD) >= 0) {
+                        // Discarded
+                    }
+                }
+                return status == 200;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * The result of a load test.
+     */
+    public static final class Report {
+
+        // Sorted, in nanoseconds
+        private final long[] latencies;
+        private final long errors;
+        private final long elapsedNanos;
+
+        Report(long[] latencies, long errors, long elapsedNanos) {
+            this.latencies = latencies;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /**
+         * @return The number of successful requests.
+         */
+        public long getRequests() { return latencies.length; }
+
+        public long getErrors() { return errors; }
+
+        public long getElapsedNanos() { return elapsedNanos; }
+
+        /**
+         * @return The successful requests per second.
+         */
+        public double getThroughput() {
+            return (elapsedNanos == 0) ? 0 : latencies.length * 1e9 / elapsedNanos;
+        }
+
+        /**
+         * @param percentile The percentile, between 0 and 100 (eg.: 99.9).
+         *
+         * @return The latency of the given percentile in nanoseconds, or 0 if there are no successful requests.
+         */
+        public long latencyNanos(double percentile) {
+            if (percentile < 0 || percentile > 100) {
+                throw new IllegalArgumentException("The percentile should be between 0 and 100.");
+            }
+            if (latencies.length == 0) {
+                return 0;
+            }
+            int rank = (int) Math.ceil(percentile / 100 * latencies.length);
+            return latencies[Math.max(0, rank - 1)];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("requests: %d, errors: %d, throughput: %.0f req/s, "
+                                 + "p50: %d us, p99: %d us, p99.9: %d us, max: %d us",
+                                 getRequests(), errors, getThroughput(),
+                                 latencyNanos(50) / 1000, latencyNanos(99) / 1000,
+                                 latencyNanos(99.9) / 1000, latencyNanos(100) / 1000);
+        }
+    }
+}
@@ -0,0 +1,371 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.NonNull;
+import net.andreinc.jasuggest.JaCacheKey;
+import net.andreinc.jasuggest.JaSuggest;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Serves a JaSuggest over HTTP, using the HttpServer of the JDK:
+ *
+ * GET /suggest?prefix=use&max=10 returns the sorted suggestions as a JSON array (eg.: ["useful","useless","user"]).
+ *
+ * The requests run on virtual threads when the JVM supports them (Java 21+), otherwise on a cached thread pool.
+ * The identical requests arriving while the same query is running wait for its answer instead of searching again.
+ */
+public class JaSuggestServer implements AutoCloseable {
+
+    static final String NO_DELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    // Returns the JaSuggest answering the next query (eg.: a JaReloadableSuggest)
+    private final Supplier<JaSuggest> jaSuggest;
+    private final HttpServer server;
+    private final ExecutorService ownedExecutor;
+    private final int defaultMaxResults;
+    private final int maxResultsLimit;
+
+    // The JSON answers of the running queries
+    private final ConcurrentHashMap<JaCacheKey, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    private JaSuggestServer(Supplier<JaSuggest> jaSuggest, HttpServer server, ExecutorService ownedExecutor,
+                            int defaultMaxResults, int maxResultsLimit) {
+        this.jaSuggest = jaSuggest;
+        this.server = server;
+        this.ownedExecutor = ownedExecutor;
+        this.defaultMaxResults = defaultMaxResults;
+        this.maxResultsLimit = maxResultsLimit;
+    }
+
+    public static JaSuggestServerBuilder builder() { return new JaSuggestServerBuilder(); }
+
+    /**
+     * @return The port the server listens on (useful when it was started on port 0).
+     */
+    public int getPort() { return server.getAddress().getPort(); }
+
+    /**
+     * @return The number of requests received.
+     */
+    public long getRequests() { return requests.sum(); }
+
+    /**
+     * @return The number of requests answered with the result of an identical running query.
+     */
+    public long getCoalesced() { return coalesced.sum(); }
+
+    /**
+     * Stops the server, without waiting for the running requests.
+     */
+    public void stop() {
+        server.stop(0);
+        if (ownedExecutor != null) {
+            ownedExecutor.shutdown();
+        }
+    }
+
+    @Override
+    public void close() { stop(); }
+
+    /**
+     * Returns an Executor running each task on a new virtual thread, if the JVM supports them.
+     * Otherwise returns a cached pool of daemon threads.
+     */
+    static ExecutorService newExecutor(String name) {
+        try {
+            // Executors.newVirtualThreadPerTaskExecutor() is available since Java 21
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.increment();
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, error("Only GET requests are supported."));
+                return;
+            }
+
+            Map<String, String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+            String prefix = parameters.get("prefix");
+            if (prefix == null) {
+                send(exchange, 400, error("The 'prefix' parameter is missing."));
+                return;
+            }
+
+            int maxResults = defaultMaxResults;
+            if (parameters.containsKey("max")) {
+                try {
+                    maxResults = Integer.parseInt(parameters.get("max"));
+                } catch (NumberFormatException e) {
+                    maxResults = -1;
+                }
+                if (maxResults < 1 || maxResults > maxResultsLimit) {
+                    send(exchange, 400, error("The 'max' parameter should be between 1 and " + maxResultsLimit + "."));
+                    return;
+                }
+            }
+
+            send(exchange, 200, suggest(prefix, maxResults));
+        } catch (RuntimeException e) {
+            send(exchange, 500, error("The query failed."));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Returns the suggestions as a JSON array. If the same query is already running, its answer is awaited.
+     */
+    byte[] suggest(String prefix, int maxResults) {
+        JaSuggest current = jaSuggest.get();
+        JaCacheKey key = inFlightKey(current, prefix, maxResults);
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        CompletableFuture<byte[]> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            coalesced.increment();
+            return running.join();
+        }
+
+        try {
+            StringBuilder json = new StringBuilder("[");
+            current.findSuggestions(prefix, maxResults, term -> {
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                appendString(json, term);
+            });
+            byte[] body = json.append(']').toString().getBytes(UTF_8);
+            future.complete(body);
+            return body;
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * The key of a running query: "USE" and "use" are the same query when the JaSuggest ignores the case.
+     */
+    static JaCacheKey inFlightKey(JaSuggest jaSuggest, String prefix, int maxResults) {
+        return new JaCacheKey(jaSuggest.isIgnoreCase() ? prefix.toLowerCase() : prefix, maxResults, true);
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static byte[] error(String message) {
+        StringBuilder json = new StringBuilder("{\"error\":");
+        appendString(json, message);
+        return json.append('}').toString().getBytes(UTF_8);
+    }
+
+    static void appendString(StringBuilder json, CharSequence value) {
+        json.append('"');
+        for(int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append(String.format("\\u%04x", (int) c));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> parameters = new HashMap<>();
+        if (rawQuery == null) {
+            return parameters;
+        }
+        try {
+            for(String pair : rawQuery.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq > 0) {
+                    parameters.putIfAbsent(URLDecoder.decode(pair.substring(0, eq), "UTF-8"),
+                                           URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+                } else if (!pair.isEmpty()) {
+                    parameters.putIfAbsent(URLDecoder.decode(pair, "UTF-8"), "");
+                }
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return parameters;
+    }
+
+    public static class JaSuggestServerBuilder {
+
+        String host = "0.0.0.0";
+        int port = 8080;
+        int backlog = 0;
+        int defaultMaxResults = 10;
+        int maxResultsLimit = 1000;
+        ExecutorService executor;
+        boolean tcpNoDelay = false;
+
+        public JaSuggestServerBuilder host(@NonNull String host) {
+            this.host = host;
+            return this;
+        }
+
+        /**
+         * The port to listen on, or 0 to use a free port (see getPort()).
+         */
+        public JaSuggestServerBuilder port(int port) {
+            if (port < 0 || port > 0xFFFF) {
+                throw new IllegalArgumentException("The port should be between 0 and 65535.");
+            }
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * The maximum number of pending connections (0 for the default of the system).
+         */
+        public JaSuggestServerBuilder backlog(int backlog) {
+            this.backlog = backlog;
+            return this;
+        }
+
+        /**
+         * The number of results returned when the request has no 'max' parameter (10 by default).
+         */
+        public JaSuggestServerBuilder defaultMaxResults(int defaultMaxResults) {
+            if (defaultMaxResults < 1) {
+                throw new IllegalArgumentException("defaultMaxResults should be at least 1.");
+            }
+            this.defaultMaxResults = defaultMaxResults;
+            return this;
+        }
+
+        /**
+         * The largest 'max' parameter accepted (1000 by default).
+         */
+        public JaSuggestServerBuilder maxResultsLimit(int maxResultsLimit) {
+            if (maxResultsLimit < 1) {
+                throw new IllegalArgumentException("maxResultsLimit should be at least 1.");
+            }
+            this.maxResultsLimit = maxResultsLimit;
+            return this;
+        }
+
+        /**
+         * The Executor running the requests. By default a virtual thread is started per request (Java 21+),
+         * or a cached thread pool is used. An Executor given here is not shut down when the server stops.
+         */
+        public JaSuggestServerBuilder executor(ExecutorService executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        /**
+         * Disables Nagle's algorithm on the connections. Without TCP_NODELAY the headers and the body of a response
+         * are sent in separate packets, and a keep-alive client waits for a delayed ACK (~40ms) on every request.
+         *
+         * The HttpServer of the JDK only reads it from the JVM-wide system property 'sun.net.httpserver.nodelay',
+         * once, when its first server is created. So this sets the property (unless it was already set), which
+         * affects every HttpServer of the JVM, and has no effect if an HttpServer was already created.
+         * The application can set -Dsun.net.httpserver.nodelay=true at startup instead.
+         */
+        public JaSuggestServerBuilder tcpNoDelay() {
+            this.tcpNoDelay = true;
+            return this;
+        }
+
+        /**
+         * Starts serving the given JaSuggest.
+         *
+         * @param jaSuggest The JaSuggest answering the queries.
+         *
+         * @return The running JaSuggestServer.
+         */
+        public JaSuggestServer start(@NonNull JaSuggest jaSuggest) {
+            return start(() -> jaSuggest);
+        }
+
+        /**
+         * Starts serving the JaSuggest returned by the Supplier for each query,
+         * eg.: a JaReloadableSuggest, so the reloads don't need a restart.
+         *
+         * @param jaSuggest Supplies the JaSuggest answering the queries.
+         *
+         * @return The running JaSuggestServer.
+         */
+        public JaSuggestServer start(@NonNull Supplier<JaSuggest> jaSuggest) {
+            if (defaultMaxResults > maxResultsLimit) {
+                throw new IllegalStateException("defaultMaxResults should not be larger than maxResultsLimit.");
+            }
+
+            if (tcpNoDelay && System.getProperty(NO_DELAY_PROPERTY) == null) {
+                System.setProperty(NO_DELAY_PROPERTY, "true");
+            }
+
+            HttpServer server;
+            try {
+                server = HttpServer.create(new InetSocketAddress(host, port), backlog);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            ExecutorService ownedExecutor = (executor == null) ? newExecutor("jasuggest-server") : null;
+            JaSuggestServer jaServer = new JaSuggestServer(jaSuggest, server, ownedExecutor, defaultMaxResults, maxResultsLimit);
+            server.createContext("/suggest", jaServer::handle);
+            server.setExecutor((executor == null) ? ownedExecutor : executor);
+            server.start();
+            return jaServer;
+        }
+    }
+}
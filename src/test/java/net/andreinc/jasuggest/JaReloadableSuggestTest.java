@@ -0,0 +1,156 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class JaReloadableSuggestTest {
+
+    @Test
+    public void testReloadSwapsTheTerms() {
+        JaReloadableSuggest suggest = new JaReloadableSuggest(() -> JaSuggest.builder().ignoreCase(),
+                                                              asList("apple", "apricot"));
+        JaSuggest old = suggest.get();
+        assertEquals(asList("apple", "apricot"), suggest.findSuggestions("ap"));
+
+        JaSuggest fresh = suggest.reload(asList("banana", "bandana")).join();
+
+        assertNotSame(old, fresh);
+        assertSame(fresh, suggest.get());
+        assertEquals(asList("banana", "bandana"), suggest.findSuggestions("BAN"));
+        assertTrue(suggest.findSuggestions("ap").isEmpty());
+    }
+
+    @Test
+    public void testReloadWarmsTheCache() {
+        JaReloadableSuggest suggest = new JaReloadableSuggest(() -> JaSuggest.builder().withCache().withMetrics(),
+                                                              asList("use", "user", "useful", "usa"));
+        suggest.findSuggestions("us");
+        suggest.findSuggestions("use", 2);
+        suggest.findSuggestions("xyz");
+
+        JaSuggest fresh = suggest.reload(getEnglishWords()).join();
+        assertEquals(2, fresh.cacheSize());
+
+        List<String> result = fresh.findSuggestions("use", 2);
+        assertEquals(fresh.findSuggestions("use").subList(0, 2), result);
+        assertEquals(1, fresh.getMetrics().snapshot().getCacheHits());
+        assertTrue(fresh.findSuggestions("us").size() > 4);
+    }
+
+    @Test
+    public void testCompleteResultsWarmedWithinTheirPreviousSize() {
+        JaReloadableSuggest suggest = new JaReloadableSuggest(() -> JaSuggest.builder().withCache().withMetrics(),
+                                                              asList("apple", "apricot", "use", "user"));
+        suggest.findSuggestions("ap");
+        suggest.findSuggestions("us");
+
+        // "ap" keeps its terms, "us" gains many more: its complete result is not collected while warming
+        List<String> terms = new ArrayList<>(getEnglishWords());
+        terms.removeIf(term -> term.startsWith("ap"));
+        terms.addAll(asList("apple", "apricot"));
+        JaSuggest fresh = suggest.reload(terms).join();
+
+        assertEquals(1, fresh.cacheSize());
+        assertEquals(asList("apple", "apricot"), fresh.findSuggestions("ap"));
+        assertEquals(1, fresh.getMetrics().snapshot().getCacheHits());
+    }
+
+    @Test
+    public void testGrownCompleteResultsWarmedUpToTheFiniteLimit() {
+        JaReloadableSuggest suggest = new JaReloadableSuggest(() -> JaSuggest.builder().withCache().withMetrics(),
+                                                              asList("use", "user", "useful", "usa"));
+        suggest.findSuggestions("us");
+        suggest.findSuggestions("use", 2);
+
+        JaSuggest fresh = suggest.reload(getEnglishWords()).join();
+
+        // "us" is only cached with the 2 results of the largest finite limit
+        assertEquals(2, fresh.cacheSize());
+        assertEquals(fresh.findSuggestions("us").subList(0, 2), fresh.findSuggestions("us", 2));
+        assertEquals(1, fresh.getMetrics().snapshot().getCacheHits());
+    }
+
+    @Test
+    public void testWarmEntriesLimit() {
+        JaReloadableSuggest suggest = new JaReloadableSuggest(() -> JaSuggest.builder().withCache(),
+                                                              getEnglishWords(), null, 1);
+        suggest.findSuggestions("ab");
+        suggest.findSuggestions("a");
+
+        JaSuggest fresh = suggest.reload(getEnglishWords()).join();
+        assertEquals(singletonList("a"), asList(fresh.cacheSnapshot().keySet().toArray()));
+    }
+
+    @Test
+    public void testSharedCacheIsRejected() {
+        JaTinyLfuCache cache = new JaTinyLfuCache(1 << 20);
+        JaReloadableSuggest suggest = new JaReloadableSuggest(() -> JaSuggest.builder().withCache(cache),
+                                                              asList("apple"));
+        JaSuggest old = suggest.get();
+        try {
+            suggest.reload(asList("banana")).join();
+            fail("The JaCache is shared");
+        } catch (CompletionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        assertSame(old, suggest.get());
+    }
+
+    @Test
+    public void testFailedReloadKeepsTheCurrentInstance() {
+        JaReloadableSuggest suggest = new JaReloadableSuggest(JaSuggest::builder, asList("apple"));
+        JaSuggest old = suggest.get();
+        try {
+            suggest.reloadFrom(() -> { throw new IllegalStateException("The source is not available"); }).join();
+            fail("The reload should fail");
+        } catch (CompletionException e) {
+            assertEquals("The source is not available", e.getCause().getMessage());
+        }
+        assertSame(old, suggest.get());
+        assertEquals(singletonList("apple"), suggest.findSuggestions("a"));
+    }
+
+    @Test
+    public void testTinyLfuHottestKeys() {
+        JaTinyLfuCache cache = new JaTinyLfuCache(1 << 20);
+        JaCacheKey popular = new JaCacheKey("usef", 10, true);
+        JaCacheKey rare = new JaCacheKey("u", 10, true);
+        cache.put(popular, singletonList("useful"));
+        cache.put(rare, singletonList("use"));
+        for(int i = 0; i < 5; ++i) {
+            cache.get(popular);
+        }
+        cache.get(rare);
+
+        assertEquals(asList(popular, rare), cache.hottestKeys(10));
+        assertEquals(singletonList(popular), cache.hottestKeys(1));
+    }
+}
@@ -0,0 +1,115 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static java.util.Arrays.asList;
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertEquals;
+
+public class JaShardedSuggestTest {
+
+    private static final List<String> ENGLISH_WORDS = getEnglishWords();
+
+    private static final String[] PREFIXES = { "", "a", "Ab", "use", "usu", "zz", "xyzw" };
+
+    @Test
+    public void testHashShardsSameAsSingleTrie() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            JaSuggest jaSuggest = JaSuggest.builder().ignoreCase().buildFrom(ENGLISH_WORDS);
+            JaShardedSuggest sharded = JaShardedSuggest.builder()
+                                                       .shards(4)
+                                                       .shardBuilder(JaSuggest.builder().ignoreCase().compact())
+                                                       .executor(executor)
+                                                       .buildFrom(ENGLISH_WORDS);
+
+            for(String prefix : PREFIXES) {
+                assertEquals(jaSuggest.findSuggestions(prefix), sharded.findSuggestions(prefix));
+                assertEquals(jaSuggest.findSuggestions(prefix, 10), sharded.findSuggestions(prefix, 10));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testShardsWithCacheSupplier() throws Exception {
+        List<String> terms = asList("apple", "apricot", "avocado", "banana", "blueberry", "cherry", "almond", "aardvark");
+        JaShardedSuggest sharded = JaShardedSuggest.builder()
+                                                   .shards(4)
+                                                   .shardBuilder(JaSuggest.builder().withCache(() -> new JaTinyLfuCache(1 << 20)))
+                                                   .buildFrom(terms);
+
+        // Twice, so the second query is answered by the caches of the shards
+        for(int i = 0; i < 2; ++i) {
+            assertEquals(asList("aardvark", "almond", "apple", "apricot", "avocado"), sharded.findSuggestions("a", 10));
+            assertEquals(asList("banana", "blueberry"), sharded.findSuggestions("b", 10));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testShardsCannotShareCacheInstance() throws Exception {
+        JaShardedSuggest.builder()
+                        .shards(4)
+                        .shardBuilder(JaSuggest.builder().withCache(new JaTinyLfuCache(1 << 20)))
+                        .buildFrom(asList("apple", "banana"));
+    }
+
+    @Test
+    public void testPrefixRangeShardsSameAsSingleTrie() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().buildFrom(ENGLISH_WORDS);
+        JaShardedSuggest sharded = JaShardedSuggest.builder()
+                                                   .shards(5)
+                                                   .partitioning(JaShardedSuggest.Partitioning.PREFIX_RANGE)
+                                                   .buildFrom(ENGLISH_WORDS);
+
+        for(String prefix : PREFIXES) {
+            assertEquals(jaSuggest.findSuggestions(prefix), sharded.findSuggestions(prefix));
+            assertEquals(jaSuggest.findSuggestions(prefix, 10), sharded.findSuggestions(prefix, 10));
+        }
+    }
+
+    @Test
+    public void testMoreShardsThanCharacters() throws Exception {
+        JaShardedSuggest sharded = JaShardedSuggest.builder()
+                                                   .shards(8)
+                                                   .partitioning(JaShardedSuggest.Partitioning.PREFIX_RANGE)
+                                                   .buildFrom(asList("us", "usa", "ux", "util"));
+
+        assertEquals(asList("us", "usa", "util", "ux"), sharded.findSuggestions(""));
+        assertEquals(asList("usa"), sharded.findSuggestions("us"));
+    }
+
+    @Test
+    public void testMergeOverlappingShards() throws Exception {
+        List<JaSuggestShard> shards = new ArrayList<>();
+        shards.add(new JaLocalShard(JaSuggest.builder().buildFrom("usa", "use", "user")));
+        shards.add(new JaLocalShard(JaSuggest.builder().buildFrom("us", "use", "useful")));
+
+        JaShardedSuggest sharded = JaShardedSuggest.of(shards, null);
+
+        assertEquals(asList("us", "usa", "use", "useful", "user"), sharded.findSuggestions("u"));
+        assertEquals(asList("us", "usa", "use"), sharded.findSuggestions("u", 3));
+    }
+}
@@ -0,0 +1,120 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static java.util.Arrays.asList;
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JaSuggestBatchTest {
+
+    private static final List<String> PREFIXES =
+            asList("use", "us", "usef", "a", "ab", "abc", "cons", "con", "xyzzy", "", "zebra", "consti", "b");
+
+    @Test
+    public void testFindSuggestionsBatchSameAsLoop() {
+        List<String> words = getEnglishWords();
+
+        List<JaSuggest> jaSuggests = asList(
+                JaSuggest.builder().buildFrom(words),
+                JaSuggest.builder().prebuiltWords().buildFrom(words),
+                JaSuggest.builder().withCache().buildFrom(words),
+                JaSuggest.builder().compact().buildFrom(words),
+                JaSuggest.builder().radix().buildFrom(words)
+        );
+
+        for(JaSuggest jaSuggest : jaSuggests) {
+            for(int maxResults : asList(5, 100, Integer.MAX_VALUE)) {
+                Map<String, List<String>> batch = jaSuggest.findSuggestionsBatch(PREFIXES, maxResults);
+                assertEquals(new ArrayList<>(PREFIXES), new ArrayList<>(batch.keySet()));
+                for(String prefix : PREFIXES) {
+                    assertEquals(prefix, jaSuggest.findSuggestions(prefix, maxResults), batch.get(prefix));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFindSuggestionsBatchInParallel() {
+        JaSuggest jaSuggest = JaSuggest.builder().buildFrom(getEnglishWords());
+        ForkJoinPool pool = new ForkJoinPool(4);
+
+        try {
+            Map<String, List<String>> batch = jaSuggest.findSuggestionsBatch(PREFIXES, 50, pool);
+            for(String prefix : PREFIXES) {
+                assertEquals(prefix, jaSuggest.findSuggestions(prefix, 50), batch.get(prefix));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testFindSuggestionsBatchIgnoreCase() {
+        JaSuggest jaSuggest = JaSuggest.builder().ignoreCase().buildFrom("us", "use", "useful");
+
+        Map<String, List<String>> batch = jaSuggest.findSuggestionsBatch(asList("US", "us", "Use"), 10);
+
+        assertEquals(asList("use", "useful"), batch.get("US"));
+        assertEquals(asList("use", "useful"), batch.get("us"));
+        assertEquals(asList("useful"), batch.get("Use"));
+    }
+
+    @Test
+    public void testFindSuggestionsBatchWarmsTheCache() {
+        JaSuggest jaSuggest = JaSuggest.builder().withCache().withMetrics().buildFrom(getEnglishWords());
+
+        jaSuggest.findSuggestionsBatch(asList("us", "use", "con"), Integer.MAX_VALUE);
+        jaSuggest.findSuggestions("con", Integer.MAX_VALUE);
+
+        JaSuggestMetrics.Snapshot snapshot = jaSuggest.getMetrics().snapshot();
+        assertEquals(4, snapshot.getQueries());
+        assertEquals(1, snapshot.getCacheHits());
+        assertTrue(jaSuggest.cacheSize() >= 3);
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void testFindSuggestionsBatchNullPrefix() {
+        JaSuggest.builder().buildFrom("test").findSuggestionsBatch(asList("te", null), 10);
+    }
+
+    @Test
+    public void testFindSuggestionsBatchCarriesThePath() {
+        Map<String, Integer> visited = new HashMap<>();
+        JaSuggest jaSuggest = JaSuggest.builder()
+                                       .withMetrics((prefix, maxResults, cacheResult, nodesVisited, results, latencyNanos) ->
+                                               visited.put(prefix, nodesVisited))
+                                       .buildFrom("usa", "usable", "used", "user");
+
+        jaSuggest.findSuggestions("use", 1);
+        int alone = visited.get("use");
+
+        jaSuggest.findSuggestionsBatch(asList("usab", "use"), 1);
+
+        // "use" doesn't contain "usab", but the path of "us" is shared: only "e" is located again
+        assertEquals(Integer.valueOf(alone - 2), visited.get("use"));
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JaSuggestBuildFromFileTest {
+
+    @ClassRule
+    public static final TemporaryFolder FOLDER = new TemporaryFolder();
+
+    private static final List<String> PREFIXES = asList("", "a", "us", "use", "zz", "qu", "xyz");
+
+    private static List<String> words;
+    private static Path sorted;
+    private static Path shuffled;
+
+    @BeforeClass
+    public static void writeFiles() throws IOException {
+        words = getEnglishWords();
+        sorted = FOLDER.newFile("sorted.txt").toPath();
+        Files.write(sorted, words, StandardCharsets.UTF_8);
+
+        List<String> copy = new ArrayList<>(words);
+        Collections.shuffle(copy, new Random(42));
+        shuffled = FOLDER.newFile("shuffled.txt").toPath();
+        Files.write(shuffled, copy, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void testSameResultsAsIterable() {
+        JaSuggest expected = JaSuggest.builder().buildFrom(words);
+
+        for(Path path : asList(sorted, shuffled)) {
+            assertSameResults(expected, JaSuggest.builder().buildFrom(path));
+            assertSameResults(expected, JaSuggest.builder().prebuiltWords().buildFrom(path));
+            assertSameResults(expected, JaSuggest.builder().compact().buildFrom(path));
+            assertSameResults(expected, JaSuggest.builder().parallelBuild().buildFrom(path));
+        }
+    }
+
+    @Test
+    public void testLineBreaks() {
+        String text = "\uFEFFuse\r\nuser\rused\n\nuseful\r\n\r\nuseless";
+        JaSuggest jaSuggest = JaSuggest.builder().buildFrom(new StringReader(text));
+
+        assertEquals(asList("use", "used", "useful", "useless", "user"), jaSuggest.findSuggestions("u"));
+    }
+
+    @Test
+    public void testLongLines() {
+        StringBuilder longTerm = new StringBuilder();
+        for(int i = 0; i < 20000; ++i) {
+            longTerm.append((char) ('a' + i % 26));
+        }
+        JaSuggest jaSuggest = JaSuggest.builder().buildFrom(new StringReader("ab\n" + longTerm + "\nabc"));
+
+        assertEquals(asList("ab", "abc", longTerm.toString()), jaSuggest.findSuggestions("a"));
+    }
+
+    @Test
+    public void testIgnoreCase() {
+        String text = "Usa\nuser\nUSELESS\n\u0130stanbul";
+        JaSuggest jaSuggest = JaSuggest.builder().ignoreCase().buildFrom(new StringReader(text));
+
+        assertEquals(JaSuggest.builder().ignoreCase().buildFrom(asList(text.split("\n"))).findSuggestions(""),
+                     jaSuggest.findSuggestions(""));
+        assertEquals(asList("usa", "useless", "user"), jaSuggest.findSuggestions("US"));
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void testMissingFile() {
+        JaSuggest.builder().buildFrom(FOLDER.getRoot().toPath().resolve("missing.txt"));
+    }
+
+    @Test
+    public void testReloadFromFile() {
+        JaReloadableSuggest suggest = new JaReloadableSuggest(JaSuggest::builder, singletonList("apple"));
+        suggest.reload(sorted).join();
+
+        assertTrue(suggest.findSuggestions("use").contains("useful"));
+        assertTrue(suggest.findSuggestions("apple").size() > 1);
+    }
+
+    private static void assertSameResults(JaSuggest expected, JaSuggest actual) {
+        for(String prefix : PREFIXES) {
+            assertEquals(expected.findSuggestions(prefix), actual.findSuggestions(prefix));
+        }
+    }
+}
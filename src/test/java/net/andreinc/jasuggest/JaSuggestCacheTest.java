@@ -0,0 +1,214 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.util.Arrays.asList;
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JaSuggestCacheTest {
+
+    private static final List<String> ENGLISH_WORDS = getEnglishWords();
+
+    @Test
+    public void testBoundedResultsNotServedToUnboundedQuery() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().withCache().buildFrom(ENGLISH_WORDS);
+        JaSuggest noCache = JaSuggest.builder().buildFrom(ENGLISH_WORDS);
+
+        assertEquals(10, jaSuggest.findSuggestions("ab", 10).size());
+        assertEquals(noCache.findSuggestions("ab"), jaSuggest.findSuggestions("ab"));
+        assertEquals(noCache.findSuggestions("ab", 10), jaSuggest.findSuggestions("ab", 10));
+        assertEquals(noCache.findSuggestions("ab", 5), jaSuggest.findSuggestions("ab", 5));
+    }
+
+    @Test
+    public void testDeriveFromShorterPrefix() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().withCache().ignoreCase().buildFrom(ENGLISH_WORDS);
+        JaSuggest noCache = JaSuggest.builder().ignoreCase().buildFrom(ENGLISH_WORDS);
+
+        jaSuggest.findSuggestions("u");
+        jaSuggest.findSuggestions("a", false);
+
+        for(String prefix : asList("u", "us", "use", "usef", "useful", "usefulx", "ab", "aba", "abac")) {
+            assertEquals(noCache.findSuggestions(prefix), jaSuggest.findSuggestions(prefix));
+            assertEquals(noCache.findSuggestions(prefix, 3), jaSuggest.findSuggestions(prefix, 3));
+            assertEquals(noCache.findSuggestions(prefix, false).size(), jaSuggest.findSuggestions(prefix, false).size());
+        }
+
+        assertTrue(jaSuggest.cacheSnapshot().containsKey("usef"));
+    }
+
+    @Test
+    public void testDeriveExcludesPrefix() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().withCache().buildFrom("us", "use", "user", "useful");
+
+        assertEquals(asList("us", "use", "useful", "user"), jaSuggest.findSuggestions("u"));
+        assertEquals(asList("useful", "user"), jaSuggest.findSuggestions("use"));
+        assertEquals(asList("useful"), jaSuggest.findSuggestions("use", 1));
+    }
+
+    @Test
+    public void testTinyLfuCacheBoundedInBytes() throws Exception {
+        JaTinyLfuCache cache = new JaTinyLfuCache(16 * 1024);
+        JaSuggest jaSuggest = JaSuggest.builder().withCache(cache).buildFrom(ENGLISH_WORDS);
+        JaSuggest noCache = JaSuggest.builder().buildFrom(ENGLISH_WORDS);
+
+        for(String prefix : asList("a", "ab", "con", "use", "usel", "x", "ze", "con", "ab")) {
+            assertEquals(noCache.findSuggestions(prefix), jaSuggest.findSuggestions(prefix));
+            assertTrue(cache.getTotalBytes() <= cache.getMaxBytes());
+        }
+
+        // The results for "a" are bigger than the cache
+        assertFalse(jaSuggest.cacheSnapshot().containsKey("a"));
+        assertTrue(jaSuggest.cacheSnapshot().containsKey("usel"));
+    }
+
+    @Test
+    public void testTinyLfuCacheAdmitsOnlyMorePopularResults() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder()
+                                       .withCache(new JaTinyLfuCache(300))
+                                       .withMetrics()
+                                       .buildFrom("apple", "apricot", "banana", "blueberry");
+
+        for(int i = 0; i < 5; ++i) {
+            jaSuggest.findSuggestions("a");
+        }
+
+        // "b" doesn't fit next to "a", and it's less popular
+        jaSuggest.findSuggestions("b");
+        assertTrue(jaSuggest.cacheSnapshot().containsKey("a"));
+        assertFalse(jaSuggest.cacheSnapshot().containsKey("b"));
+
+        for(int i = 0; i < 10; ++i) {
+            jaSuggest.findSuggestions("b");
+        }
+        assertFalse(jaSuggest.cacheSnapshot().containsKey("a"));
+        assertTrue(jaSuggest.cacheSnapshot().containsKey("b"));
+        assertEquals(1, jaSuggest.getMetrics().snapshot().getCacheEvictions());
+    }
+
+    @Test
+    public void testConcurrentMissesReturnTheSameResult() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().withCache().withMetrics().buildFrom(ENGLISH_WORDS);
+        List<String> expected = JaSuggest.builder().buildFrom(ENGLISH_WORDS).findSuggestions("");
+
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for(int i = 0; i < threads; ++i) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return jaSuggest.findSuggestions("");
+                }));
+            }
+            start.countDown();
+
+            for(Future<List<String>> future : futures) {
+                assertEquals(expected, future.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        // The callers arriving while the result is computed wait for it, the later ones find it cached:
+        // the Trie is searched once
+        JaSuggestMetrics.Snapshot snapshot = jaSuggest.getMetrics().snapshot();
+        assertEquals(threads, snapshot.getCacheHits() + snapshot.getCacheDerived() + snapshot.getCacheMisses()
+                              + snapshot.getCacheCoalesced());
+        assertEquals(1, snapshot.getCacheMisses());
+    }
+
+    @Test
+    public void testTinyLfuPeekIsNotCounted() throws Exception {
+        JaTinyLfuCache cache = new JaTinyLfuCache(1024);
+        JaCacheKey key = new JaCacheKey("us", 10, true);
+        cache.put(key, asList("usa", "use"));
+
+        for(int i = 0; i < 3; ++i) {
+            assertEquals(asList("usa", "use"), cache.peek(key));
+        }
+        assertEquals(0, cache.frequency(key));
+
+        cache.get(key);
+        assertEquals(1, cache.frequency(key));
+    }
+
+    @Test
+    public void testTinyLfuDerivedQueryCountedOnce() throws Exception {
+        JaTinyLfuCache cache = new JaTinyLfuCache(64 * 1024);
+        JaSuggest jaSuggest = JaSuggest.builder().withCache(cache).buildFrom("us", "usa", "use", "user");
+
+        jaSuggest.findSuggestions("us");
+        jaSuggest.findSuggestions("use");
+
+        // The complete list of "us" answered "use" without being looked up itself
+        assertEquals(1, cache.frequency(new JaCacheKey("us", Integer.MAX_VALUE, true)));
+        assertEquals(1, cache.frequency(new JaCacheKey("use", Integer.MAX_VALUE, true)));
+    }
+
+    @Test
+    public void testTinyLfuKeepsTheReplacedValueIfNotAdmitted() throws Exception {
+        JaCacheKey popular = new JaCacheKey("a", 10, true);
+        JaCacheKey key = new JaCacheKey("b", 10, true);
+        List<String> small = asList("banana");
+        List<String> big = asList("banana", "blueberry", "blackberry", "boysenberry");
+
+        JaTinyLfuCache cache = new JaTinyLfuCache(JaTinyLfuCache.estimateBytes(popular, small)
+                                                  + JaTinyLfuCache.estimateBytes(key, small) + 16);
+        cache.put(popular, small);
+        cache.put(key, small);
+        for(int i = 0; i < 5; ++i) {
+            cache.get(popular);
+        }
+
+        // The bigger value would evict a more popular result: it's rejected, the old one stays
+        cache.put(key, big);
+        assertEquals(small, cache.peek(key));
+        assertEquals(small, cache.peek(popular));
+    }
+
+    @Test
+    public void testSharedCacheRegistersTheListenerOnce() throws Exception {
+        JaSuggest.JaSuggestBuilder builder = JaSuggest.builder().withCache(new JaTinyLfuCache(300)).withMetrics();
+        JaSuggest jaSuggest = builder.buildFrom("apple", "apricot", "banana", "blueberry");
+        JaSuggest other = builder.buildFrom("apple", "apricot", "banana", "blueberry");
+
+        for(int i = 0; i < 10; ++i) {
+            other.findSuggestions("a");
+        }
+        for(int i = 0; i < 20; ++i) {
+            jaSuggest.findSuggestions("b");
+        }
+
+        assertTrue(jaSuggest.getMetrics() == other.getMetrics());
+        assertEquals(1, jaSuggest.getMetrics().snapshot().getCacheEvictions());
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JaSuggestCategoryTest {
+
+    private static Map<String, Set<Integer>> categorizedWords() {
+        Random random = new Random(7);
+        Map<String, Set<Integer>> categorized = new HashMap<>();
+        for(String word : getEnglishWords()) {
+            Set<Integer> categories = new TreeSet<>();
+            // Some terms are in no category, some ids need a second long
+            int count = random.nextInt(3);
+            for(int i = 0; i < count; ++i) {
+                categories.add(random.nextInt(100));
+            }
+            categorized.put(word, categories);
+        }
+        return categorized;
+    }
+
+    @Test
+    public void testSameResultsAsFilteringAllTheSuggestions() {
+        Map<String, Set<Integer>> categorized = categorizedWords();
+
+        for(JaSuggest.JaSuggestBuilder builder : asList(JaSuggest.builder(), JaSuggest.builder().prebuiltWords())) {
+            JaSuggest jaSuggest = builder.buildFromCategorized(categorized);
+            assertTrue(jaSuggest.hasCategories());
+
+            for(String prefix : asList("", "a", "un", "use", "xyz")) {
+                for(List<Integer> filter : asList(singletonList(3), asList(5, 70), asList(63, 64, 99))) {
+                    List<String> expected = new ArrayList<>();
+                    for(String term : jaSuggest.findSuggestions(prefix)) {
+                        if (!Collections.disjoint(categorized.get(term), filter)) {
+                            expected.add(term);
+                        }
+                    }
+                    List<String> actual = jaSuggest.findSuggestions(prefix, Integer.MAX_VALUE, JaCategoryFilter.anyOf(filter));
+                    assertEquals(expected, actual);
+                    assertEquals(expected.subList(0, Math.min(5, expected.size())),
+                                 jaSuggest.findSuggestions(prefix, 5, JaCategoryFilter.anyOf(filter)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testIgnoreCaseMergesTheCategories() {
+        Map<String, List<Integer>> categorized = new HashMap<>();
+        categorized.put("Apple", singletonList(1));
+        categorized.put("apple", singletonList(2));
+        categorized.put("apricot", singletonList(1));
+        categorized.put("avocado", emptyList());
+
+        JaSuggest jaSuggest = JaSuggest.builder().ignoreCase().buildFromCategorized(categorized);
+
+        assertEquals(asList("apple", "apricot"), jaSuggest.findSuggestions("A", 10, JaCategoryFilter.anyOf(1)));
+        assertEquals(singletonList("apple"), jaSuggest.findSuggestions("A", 10, JaCategoryFilter.anyOf(2)));
+        assertEquals(emptyList(), jaSuggest.findSuggestions("A", 10, JaCategoryFilter.anyOf(3)));
+        assertEquals(asList("apple", "apricot", "avocado"), jaSuggest.findSuggestions("a"));
+    }
+
+    @Test
+    public void testUpdates() {
+        Map<String, Collection<Integer>> categorized = new HashMap<>();
+        categorized.put("use", singletonList(1));
+        categorized.put("user", singletonList(2));
+        categorized.put("useful", singletonList(1));
+
+        JaSuggest jaSuggest = JaSuggest.builder().buildFromCategorized(categorized);
+        jaSuggest.addTerm("useless");
+        jaSuggest.removeTerm("useful");
+
+        assertEquals(singletonList("use"), jaSuggest.findSuggestions("u", 10, JaCategoryFilter.anyOf(1)));
+        assertEquals(singletonList("user"), jaSuggest.findSuggestions("u", 10, JaCategoryFilter.anyOf(2)));
+        assertEquals(asList("use", "useless", "user"), jaSuggest.findSuggestions("u"));
+
+        jaSuggest.removeTerm("use");
+        assertEquals(emptyList(), jaSuggest.findSuggestions("u", 10, JaCategoryFilter.anyOf(1)));
+        jaSuggest.addTerm("use");
+        assertEquals(emptyList(), jaSuggest.findSuggestions("u", 10, JaCategoryFilter.anyOf(1)));
+    }
+
+    @Test
+    public void testLongTerm() {
+        StringBuilder term = new StringBuilder();
+        for(int i = 0; i < 10000; ++i) {
+            term.append((char) ('a' + i % 26));
+        }
+        String longTerm = term.toString();
+
+        Map<String, List<Integer>> categorized = new HashMap<>();
+        categorized.put(longTerm, singletonList(1));
+        categorized.put(longTerm + "z", singletonList(2));
+        categorized.put("abc", singletonList(2));
+
+        JaSuggest jaSuggest = JaSuggest.builder().buildFromCategorized(categorized);
+
+        assertEquals(singletonList(longTerm), jaSuggest.findSuggestions("ab", 10, JaCategoryFilter.anyOf(1)));
+        assertEquals(asList("abc", longTerm + "z"), jaSuggest.findSuggestions("ab", 10, JaCategoryFilter.anyOf(2)));
+    }
+
+    @Test
+    public void testUnionSharesTheArrays() {
+        long[] a = JaCategories.of(asList(1, 2));
+        long[] b = JaCategories.of(singletonList(2));
+        long[] c = JaCategories.of(singletonList(70));
+
+        assertTrue(JaCategories.union(a, b) == a);
+        assertTrue(JaCategories.union(b, a) == a);
+        assertTrue(JaCategories.union(null, c) == c);
+        assertTrue(JaCategories.intersects(JaCategories.union(a, c), c));
+
+        Map<JaCategories.JaCategoryKey, long[]> interned = JaCategories.newInterner();
+        assertTrue(JaCategories.intern(new long[] { 6 }, interned) == JaCategories.intern(new long[] { 6, 0 }, interned));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNotCategorized() {
+        JaSuggest.builder().buildFrom("use", "user").findSuggestions("u", 10, JaCategoryFilter.anyOf(1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCompactNotSupported() {
+        JaSuggest.builder().compact().buildFromCategorized(new HashMap<String, List<Integer>>());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeCategory() {
+        Map<String, List<Integer>> categorized = new HashMap<>();
+        categorized.put("use", singletonList(-1));
+        JaSuggest.builder().buildFromCategorized(categorized);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyFilter() {
+        JaCategoryFilter.anyOf();
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JaSuggestCompactTest {
+
+    private static final List<String> ENGLISH_WORDS = getEnglishWords();
+
+    private static final String[] PREFIXES = { "", "a", "ab", "use", "usu", "zz", "xyzw" };
+
+    @Test
+    public void testFindSuggestionsEmptyList() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().compact().buildFrom();
+
+        assertTrue(jaSuggest.isCompact());
+        assertTrue(jaSuggest.findSuggestions("").size() == 0);
+        assertTrue(jaSuggest.findSuggestions("a", 10).size() == 0);
+    }
+
+    @Test
+    public void testFindSuggestionsSameAsDefault() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().buildFrom(ENGLISH_WORDS);
+        JaSuggest compact = JaSuggest.builder().compact().buildFrom(ENGLISH_WORDS);
+
+        for(String prefix : PREFIXES) {
+            assertEquals(jaSuggest.findSuggestions(prefix), compact.findSuggestions(prefix));
+            assertEquals(jaSuggest.findSuggestions(prefix, 10), compact.findSuggestions(prefix, 10));
+        }
+    }
+
+    @Test
+    public void testFindSuggestionsIgnoreCase() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().ignoreCase().buildFrom(ENGLISH_WORDS);
+        JaSuggest compact = JaSuggest.builder().ignoreCase().compact().withCache().buildFrom(ENGLISH_WORDS);
+
+        assertEquals(jaSuggest.findSuggestions("Ab", 25), compact.findSuggestions("aB", 25));
+        assertEquals(jaSuggest.findSuggestions("Ab", 25), compact.findSuggestions("aB", 25));
+    }
+}
@@ -0,0 +1,125 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JaSuggestDawgTest {
+
+    private static final List<String> ENGLISH_WORDS = getEnglishWords();
+
+    private static final String[] PREFIXES = { "", "a", "ab", "use", "usu", "usurp", "zz", "xyzw" };
+
+    @Test
+    public void testFindSuggestionsEmptyList() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().dawg().buildFrom();
+
+        assertTrue(jaSuggest.isDawg());
+        assertTrue(jaSuggest.findSuggestions("").isEmpty());
+        assertTrue(jaSuggest.findSuggestions("a", 10).isEmpty());
+    }
+
+    @Test
+    public void testSharedSuffixes() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().dawg()
+                                       .buildFrom("walk", "walking", "walked", "talk", "talking", "talked");
+
+        assertEquals(asList("talked", "talking"), jaSuggest.findSuggestions("talk"));
+        assertEquals(asList("walk", "walked", "walking"), jaSuggest.findSuggestions("w"));
+        assertEquals(asList("walk"), jaSuggest.findSuggestions("wa", 1));
+        assertTrue(jaSuggest.findSuggestions("walking").isEmpty());
+        assertTrue(jaSuggest.findSuggestions("x").isEmpty());
+
+        // "alk" + {"", "ing", "ed"} is stored once: w, t, a, l, k, i, n, g, e, d
+        JaMap root = JaSuggest.builder().buildFrom("walk", "walking", "walked", "talk", "talking", "talked").root();
+        assertEquals(10, JaDawgIndex.freeze(root).arcs());
+    }
+
+    @Test
+    public void testFindSuggestionsSameAsDefault() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().ignoreCase().buildFrom(ENGLISH_WORDS);
+        JaSuggest dawg = JaSuggest.builder().ignoreCase().dawg().buildFrom(ENGLISH_WORDS);
+
+        for(String prefix : PREFIXES) {
+            assertEquals(jaSuggest.findSuggestions(prefix), dawg.findSuggestions(prefix));
+            assertEquals(jaSuggest.findSuggestions(prefix, 10), dawg.findSuggestions(prefix, 10));
+            assertEquals(jaSuggest.findSuggestions(prefix.toUpperCase(), 10), dawg.findSuggestions(prefix.toUpperCase(), 10));
+        }
+    }
+
+    @Test
+    public void testFewerNodesThanTheTrie() throws Exception {
+        JaMap root = JaSuggest.builder().buildFrom(ENGLISH_WORDS).root();
+        JaDawgIndex dawg = JaDawgIndex.freeze(root);
+        JaCompactIndex compact = JaCompactIndex.freeze(root);
+
+        assertTrue(dawg.arcs() * 2 < compact.size());
+    }
+
+    @Test
+    public void testIncrementalBuildSameAsFrozenTrie() throws Exception {
+        JaMap root = JaSuggest.builder().buildFrom(ENGLISH_WORDS).root();
+        JaDawgIndex frozen = JaDawgIndex.freeze(root);
+
+        List<String> sorted = new ArrayList<>(ENGLISH_WORDS);
+        Collections.sort(sorted);
+        JaDawgIndex built = JaDawgIndex.build(sorted);
+
+        // The minimal automaton is unique
+        assertEquals(frozen.states(), built.states());
+        assertEquals(frozen.arcs(), built.arcs());
+    }
+
+    @Test
+    public void testLongTerm() throws Exception {
+        StringBuilder term = new StringBuilder();
+        for(int i = 0; i < 10000; ++i) {
+            term.append((char) ('a' + i % 26));
+        }
+        String longTerm = term.toString();
+
+        JaSuggest dawg = JaSuggest.builder().dawg().buildFrom(longTerm + "z", "abc", longTerm);
+        assertEquals(asList("abc", longTerm, longTerm + "z"), dawg.findSuggestions("ab"));
+
+        Map<String, Long> weighted = new HashMap<>();
+        weighted.put(longTerm, 1L);
+        weighted.put("abc", 2L);
+        JaSuggest fromTrie = JaSuggest.builder().dawg().buildFromWeighted(weighted);
+        assertEquals(asList("abc", longTerm), fromTrie.findSuggestions("ab"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsortedTerms() throws Exception {
+        JaDawgIndex.build(asList("use", "us"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRadixAndDawg() throws Exception {
+        JaSuggest.builder().radix().dawg().buildFrom("us");
+    }
+}
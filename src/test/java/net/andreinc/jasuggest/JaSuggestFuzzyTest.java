@@ -0,0 +1,117 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JaSuggestFuzzyTest {
+
+    @Test
+    public void testFindFuzzySuggestionsWithTypos() {
+        JaSuggest jaSuggest = JaSuggest.builder()
+                                        .buildFrom("us", "usa", "use", "useful", "useless", "user", "usurper", "apple");
+
+        assertEquals(asList("use", "useful", "useless", "user"), jaSuggest.findFuzzySuggestions("usre", 1, 10));
+        assertEquals(asList("use", "useful"), jaSuggest.findFuzzySuggestions("usre", 1, 2));
+        assertEquals(asList("useful"), jaSuggest.findFuzzySuggestions("uesful", 1, 10));
+        assertTrue(jaSuggest.findFuzzySuggestions("uesful", 0, 10).isEmpty());
+        assertEquals(asList("apple"), jaSuggest.findFuzzySuggestions("aple", 1, 10));
+        assertTrue(jaSuggest.findFuzzySuggestions("usr", 1, 0).isEmpty());
+    }
+
+    @Test
+    public void testFindFuzzySuggestionsWithoutEditsIsAPrefixSearch() {
+        JaSuggest jaSuggest = JaSuggest.builder().ignoreCase().buildFrom(getEnglishWords());
+
+        assertEquals(jaSuggest.findSuggestions("cons", 25), jaSuggest.findFuzzySuggestions("CONS", 0, 25));
+    }
+
+    @Test
+    public void testFindFuzzySuggestionsSameAsBruteForce() {
+        List<String> words = getEnglishWords();
+        JaSuggest jaSuggest = JaSuggest.builder().buildFrom(words);
+
+        for(String query : asList("usr", "uesful", "aple", "thoery", "xz", "")) {
+            for(int maxEdits = 0; maxEdits <= 2; ++maxEdits) {
+                assertEquals(query + "/" + maxEdits,
+                             bruteForce(words, query, maxEdits, 30),
+                             jaSuggest.findFuzzySuggestions(query, maxEdits, 30));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeMaxEdits() {
+        JaSuggest.builder().buildFrom("test").findFuzzySuggestions("test", -1, 10);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testFuzzyNotSupportedByCompact() {
+        JaSuggest.builder().compact().buildFrom("test").findFuzzySuggestions("tset", 1, 10);
+    }
+
+    private static List<String> bruteForce(List<String> words, String query, int maxEdits, int k) {
+        List<String[]> matches = new ArrayList<>();
+        for(String word : words) {
+            if (word.equals(query)) {
+                continue;
+            }
+            int distance = Integer.MAX_VALUE;
+            for(int i = 0; i <= word.length(); ++i) {
+                distance = Math.min(distance, distance(word.substring(0, i), query));
+            }
+            if (distance <= maxEdits) {
+                matches.add(new String[] { word, String.valueOf(distance) });
+            }
+        }
+        matches.sort(Comparator.<String[]>comparingInt(m -> Integer.parseInt(m[1])).thenComparing(m -> m[0]));
+
+        List<String> result = new ArrayList<>();
+        for(int i = 0; i < Math.min(k, matches.size()); ++i) {
+            result.add(matches.get(i)[0]);
+        }
+        return result;
+    }
+
+    // Optimal string alignment distance
+    private static int distance(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for(int i = 0; i <= a.length(); ++i) {
+            for(int j = 0; j <= b.length(); ++j) {
+                if (i == 0 || j == 0) {
+                    d[i][j] = i + j;
+                    continue;
+                }
+                int cost = (a.charAt(i - 1) == b.charAt(j - 1)) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    d[i][j] = Math.min(d[i][j], d[i - 2][j - 2] + 1);
+                }
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JaSuggestIndexFileTest {
+
+    private static final List<String> ENGLISH_WORDS = getEnglishWords();
+
+    private static final String[] PREFIXES = { "", "a", "ab", "use", "usu", "zz", "xyzw" };
+
+    private Path indexFile;
+
+    @Before
+    public void createIndexFile() throws IOException {
+        indexFile = Files.createTempFile("jasuggest", ".idx");
+    }
+
+    @After
+    public void deleteIndexFile() throws IOException {
+        Files.deleteIfExists(indexFile);
+    }
+
+    @Test
+    public void testWriteAndOpenIndexFile() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().buildFrom(ENGLISH_WORDS);
+        jaSuggest.writeTo(indexFile);
+
+        JaSuggest mapped = JaSuggest.builder().buildFromIndexFile(indexFile);
+
+        assertTrue(mapped.isMapped());
+        for(String prefix : PREFIXES) {
+            assertEquals(jaSuggest.findSuggestions(prefix), mapped.findSuggestions(prefix));
+            assertEquals(jaSuggest.findSuggestions(prefix, 10), mapped.findSuggestions(prefix, 10));
+        }
+    }
+
+    @Test
+    public void testOpenIndexFileWithCache() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().buildFrom(ENGLISH_WORDS);
+        jaSuggest.writeTo(indexFile);
+
+        JaSuggest mapped = JaSuggest.builder().withCache().buildFromIndexFile(indexFile);
+
+        assertTrue(mapped.hasCache());
+        // The second round is answered from the cache (directly, or derived from the complete lists)
+        for(int round = 0; round < 2; ++round) {
+            for(String prefix : PREFIXES) {
+                assertEquals(jaSuggest.findSuggestions(prefix), mapped.findSuggestions(prefix));
+                assertEquals(jaSuggest.findSuggestions(prefix, 10), mapped.findSuggestions(prefix, 10));
+            }
+        }
+        assertTrue(mapped.cacheSize() > 0);
+    }
+
+    @Test
+    public void testWriteCompactIgnoreCase() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().ignoreCase().compact().buildFrom(ENGLISH_WORDS);
+        jaSuggest.writeTo(indexFile);
+
+        JaSuggest mapped = JaSuggest.builder().buildFromIndexFile(indexFile);
+
+        assertEquals(jaSuggest.findSuggestions("ab", 20), mapped.findSuggestions("AB", 20));
+    }
+
+    @Test
+    public void testWriteEmpty() throws Exception {
+        JaSuggest.builder().buildFrom().writeTo(indexFile);
+
+        assertTrue(JaSuggest.builder().buildFromIndexFile(indexFile).findSuggestions("").isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOpenInvalidFile() throws Exception {
+        Files.write(indexFile, new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16 });
+        JaSuggest.builder().buildFromIndexFile(indexFile);
+    }
+}
@@ -0,0 +1,160 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JaSuggestInfixTest {
+
+    @Test
+    public void testFindInfixSuggestions() {
+        JaSuggest jaSuggest = JaSuggest.builder()
+                                        .withInfixIndex()
+                                        .buildFrom("us", "use", "useful", "useless", "user", "fully", "awful", "ful");
+
+        assertEquals(asList("awful", "fully", "useful"), jaSuggest.findInfixSuggestions("ful", 10));
+        assertEquals(asList("awful", "fully"), jaSuggest.findInfixSuggestions("ful", 2));
+        assertEquals(asList("use", "useful", "useless", "user"), jaSuggest.findInfixSuggestions("se", 10));
+        assertEquals(asList("useless"), jaSuggest.findInfixSuggestions("ss", 10));
+        assertTrue(jaSuggest.findInfixSuggestions("xyz", 10).isEmpty());
+        assertTrue(jaSuggest.findInfixSuggestions("ful", 0).isEmpty());
+        assertEquals(8, jaSuggest.findInfixSuggestions("", 100).size());
+        assertTrue(jaSuggest.infixIndexSize() > 0);
+    }
+
+    @Test
+    public void testFindInfixSuggestionsSameAsScan() {
+        List<String> words = getEnglishWords();
+
+        JaSuggest jaSuggest = JaSuggest.builder().withInfixIndex().buildFrom(words);
+        JaSuggest compact = JaSuggest.builder().withInfixIndex().compact().buildFrom(words);
+
+        List<String> sorted = jaSuggest.findSuggestions("");
+
+        for(String fragment : asList("ful", "tion", "q", "xyl", "zzzz", "ing")) {
+            List<String> expected = new ArrayList<>();
+            for(String word : sorted) {
+                if (word.contains(fragment) && !word.equals(fragment) && expected.size() < 50) {
+                    expected.add(word);
+                }
+            }
+            assertEquals(expected, jaSuggest.findInfixSuggestions(fragment, 50));
+            assertEquals(expected, compact.findInfixSuggestions(fragment, 50));
+        }
+    }
+
+    @Test
+    public void testShortFragmentsSameAsScan() {
+        List<String> words = getEnglishWords();
+        JaSuggest jaSuggest = JaSuggest.builder().withInfixIndex().buildFrom(words);
+        List<String> sorted = jaSuggest.findSuggestions("");
+
+        // Matched by most of the terms (scanned in order) or by a few of them (offered to the k smallest ids)
+        for(String fragment : asList("e", "s", "er", "a", "zy", "j")) {
+            for(int k : asList(1, 10, 1000)) {
+                List<String> expected = new ArrayList<>();
+                for(String word : sorted) {
+                    if (word.contains(fragment) && !word.equals(fragment) && expected.size() < k) {
+                        expected.add(word);
+                    }
+                }
+                assertEquals(expected, jaSuggest.findInfixSuggestions(fragment, k));
+            }
+        }
+    }
+
+    @Test
+    public void testRepeatedFragment() {
+        JaSuggest jaSuggest = JaSuggest.builder().withInfixIndex().buildFrom("aa", "aaaa", "baab", "caa", "daaxaa");
+
+        // Each term once, even if it contains the fragment more than once
+        assertEquals(asList("aaaa", "baab"), jaSuggest.findInfixSuggestions("aa", 2));
+        assertEquals(asList("aaaa", "baab", "caa", "daaxaa"), jaSuggest.findInfixSuggestions("aa", 10));
+    }
+
+    @Test
+    public void testLongRepetitiveTerm() {
+        StringBuilder term = new StringBuilder();
+        for(int i = 0; i < 20000; ++i) {
+            term.append((i % 1000 == 999) ? 'b' : 'a');
+        }
+
+        JaSuggest jaSuggest = JaSuggest.builder().withInfixIndex().buildFrom(term.toString(), "ab");
+
+        assertEquals(asList(term.toString()), jaSuggest.findInfixSuggestions("aab", 10));
+    }
+
+    @Test
+    public void testInfixIndexIsRebuiltAfterWrites() {
+        JaSuggest jaSuggest = JaSuggest.builder().ignoreCase().withInfixIndex().buildFrom("useful", "awful");
+
+        assertEquals(asList("awful", "useful"), jaSuggest.findInfixSuggestions("FUL", 10));
+
+        jaSuggest.addTerm("Fulfil");
+        jaSuggest.removeTerm("awful");
+
+        assertEquals(asList("fulfil", "useful"), jaSuggest.findInfixSuggestions("ful", 10));
+    }
+
+    @Test
+    public void testInfixIndexServedDuringWrites() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().withInfixIndex().buildFrom("useful", "awful");
+
+        Thread writer = new Thread(() -> {
+            for(int i = 0; i < 200; ++i) {
+                jaSuggest.addTerm("ful" + i);
+                jaSuggest.removeTerm("ful" + i);
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            List<String> result = jaSuggest.findInfixSuggestions("wfu", 10);
+            assertEquals(asList("awful"), result);
+        }
+        writer.join();
+
+        assertEquals(asList("awful", "useful"), jaSuggest.findInfixSuggestions("ful", 10));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSeparatorInTerm() {
+        JaSuggest.builder().withInfixIndex().buildFrom("use\u0000ful");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSeparatorInAddedTerm() {
+        JaSuggest.builder().withInfixIndex().buildFrom("useful").addTerm("aw\u0000ful");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testInfixIndexNotEnabled() {
+        JaSuggest.builder().buildFrom("useful").findInfixSuggestions("ful", 10);
+    }
+
+    @Test
+    public void testInfixIndexSizeNotEnabled() {
+        assertEquals(-1, JaSuggest.builder().buildFrom("useful").infixIndexSize());
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JaSuggestMetricsTest {
+
+    @Test
+    public void testQueryAndCacheMetrics() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder()
+                                       .withCache(JaCacheConfig.builder().maxSize(2).build())
+                                       .withMetrics()
+                                       .buildFrom("us", "usa", "use", "useful", "ux", "util");
+
+        jaSuggest.findSuggestions("us");
+        jaSuggest.findSuggestions("us");
+        jaSuggest.findSuggestions("use");
+        jaSuggest.findSuggestions("ut");
+        jaSuggest.findSuggestions("x");
+
+        JaSuggestMetrics.Snapshot snapshot = jaSuggest.getMetrics().snapshot();
+
+        assertEquals(5, snapshot.getQueries());
+        assertEquals(1, snapshot.getCacheHits());
+        assertEquals(1, snapshot.getCacheDerived());
+        assertEquals(3, snapshot.getCacheMisses());
+        assertEquals(0.4, snapshot.getCacheHitRatio(), 1e-9);
+        assertEquals(1, snapshot.getCacheEvictions());
+        assertEquals(8, snapshot.getResults());
+        assertTrue(snapshot.getNodesVisited() >= 6);
+        assertTrue(snapshot.latencyPercentile(50) > 0);
+        assertTrue(snapshot.latencyPercentile(100) >= snapshot.latencyPercentile(50));
+
+        jaSuggest.getMetrics().reset();
+        assertEquals(0, jaSuggest.getMetrics().snapshot().getQueries());
+    }
+
+    @Test
+    public void testCustomListener() throws Exception {
+        List<String> events = new ArrayList<>();
+        JaSuggest jaSuggest = JaSuggest.builder()
+                                       .compact()
+                                       .withMetrics((prefix, maxResults, cacheResult, nodesVisited, results, latencyNanos) ->
+                                               events.add(prefix + " " + maxResults + " " + cacheResult + " " + nodesVisited + " " + results))
+                                       .buildFrom("us", "usa", "use");
+
+        jaSuggest.findSuggestions("us", 10);
+
+        assertNull(jaSuggest.getMetrics());
+        assertEquals("us 10 DISABLED 5 2", events.get(0));
+    }
+}
@@ -22,6 +22,7 @@ import java.util.List;
 
 import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
 import static net.andreinc.jasuggest.TestUtils.isStringListSorted;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 public class JaSuggestNoCacheTest {
@@ -290,4 +291,20 @@ public class JaSuggestNoCacheTest {
 
         assertTrue(isStringListSorted(resultABMax));
     }
+
+    @Test
+    public void testFindSuggestionsMaxSizeMatchesFullResult() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().buildFrom(ENGLISH_WORDS);
+        JaSuggest jaSuggest2 = JaSuggest.builder().prebuiltWords().buildFrom(ENGLISH_WORDS);
+
+        List<String> resultA = jaSuggest.findSuggestions("a");
+
+        for(int maxResults : new int[] { 0, 1, 10, 1000 }) {
+            assertEquals(resultA.subList(0, maxResults), jaSuggest.findSuggestions("a", maxResults));
+            assertEquals(resultA.subList(0, maxResults), jaSuggest2.findSuggestions("a", maxResults));
+        }
+
+        assertEquals(resultA, jaSuggest2.findSuggestions("a"));
+        assertEquals(resultA.size(), jaSuggest.findSuggestions("a", false).size());
+    }
 }
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static java.util.Arrays.asList;
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JaSuggestParallelBuildTest {
+
+    private static final List<String> ENGLISH_WORDS = getEnglishWords();
+
+    private static final String[] PREFIXES = { "", "a", "ab", "use", "usu", "zz", "xyzw" };
+
+    @Test
+    public void testParallelBuildSameAsSequential() throws Exception {
+        List<String> shuffled = new ArrayList<>(ENGLISH_WORDS);
+        Collections.shuffle(shuffled, new Random(42));
+
+        JaSuggest jaSuggest = JaSuggest.builder().buildFrom(ENGLISH_WORDS);
+        JaSuggest parallel = JaSuggest.builder().parallelBuild().buildFrom(shuffled);
+        JaSuggest parallelPrebuilt = JaSuggest.builder().prebuiltWords().parallelBuild(new ForkJoinPool(3)).buildFrom(ENGLISH_WORDS);
+
+        for(String prefix : PREFIXES) {
+            assertEquals(jaSuggest.findSuggestions(prefix), parallel.findSuggestions(prefix));
+            assertEquals(jaSuggest.findSuggestions(prefix), parallelPrebuilt.findSuggestions(prefix));
+        }
+    }
+
+    @Test
+    public void testParallelBuildWeighted() throws Exception {
+        Map<String, Long> terms = new HashMap<>();
+        for(String word : ENGLISH_WORDS) {
+            terms.put(word, (long) (word.hashCode() & 0xFF));
+        }
+
+        JaSuggest jaSuggest = JaSuggest.builder().buildFromWeighted(terms);
+        JaSuggest parallel = JaSuggest.builder().parallelBuild().buildFromWeighted(terms);
+
+        for(String prefix : PREFIXES) {
+            assertEquals(jaSuggest.findTopSuggestions(prefix, 20), parallel.findTopSuggestions(prefix, 20));
+        }
+    }
+
+    @Test
+    public void testSequentialBuildAnyOrder() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().ignoreCase().buildFrom("useful", "US", "user", "usa", "use", "usa");
+
+        assertEquals(asList("usa", "use", "useful", "user"), jaSuggest.findSuggestions("Us"));
+    }
+
+    @Test
+    public void testArrayTermsLowerCasedWithIgnoreCase() throws Exception {
+        // Like buildFrom(Iterable), buildFrom(String...) lower cases the terms with ignoreCase()
+        JaSuggest array = JaSuggest.builder().ignoreCase().buildFrom("USA", "Useful", "user");
+        JaSuggest iterable = JaSuggest.builder().ignoreCase().buildFrom(asList("USA", "Useful", "user"));
+
+        assertEquals(asList("usa", "useful", "user"), array.findSuggestions("US"));
+        assertEquals(iterable.findSuggestions("us"), array.findSuggestions("us"));
+
+        // Without ignoreCase() the terms are kept as they are
+        JaSuggest caseSensitive = JaSuggest.builder().buildFrom("USA", "Useful");
+        assertEquals(asList("USA", "Useful"), caseSensitive.findSuggestions("U"));
+        assertTrue(caseSensitive.findSuggestions("u").isEmpty());
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertEquals;
+
+public class JaSuggestPrebuiltWordsTest {
+
+    private static final List<String> ENGLISH_WORDS = getEnglishWords();
+
+    @Test
+    public void testSameResultsAsDefault() {
+        JaSuggest prebuilt = JaSuggest.builder().ignoreCase().prebuiltWords().buildFrom(ENGLISH_WORDS);
+        JaSuggest parallel = JaSuggest.builder().ignoreCase().prebuiltWords().parallelBuild().buildFrom(ENGLISH_WORDS);
+        JaSuggest jaSuggest = JaSuggest.builder().ignoreCase().buildFrom(ENGLISH_WORDS);
+
+        for(String prefix : asList("", "a", "ab", "con", "usel", "zz")) {
+            assertEquals(jaSuggest.findSuggestions(prefix), prebuilt.findSuggestions(prefix));
+            assertEquals(jaSuggest.findSuggestions(prefix), parallel.findSuggestions(prefix));
+            assertEquals(jaSuggest.findSuggestions(prefix, false).size(), prebuilt.findSuggestions(prefix, false).size());
+        }
+    }
+
+    @Test
+    public void testTermsPackedInOrder() {
+        JaSuggest jaSuggest = JaSuggest.builder().prebuiltWords().buildFrom("user", "us", "useful", "use");
+        JaTermDictionary dictionary = JaTermDictionary.pack(jaSuggest.root());
+
+        List<String> terms = new ArrayList<>();
+        for(int i = 0; i < dictionary.size(); ++i) {
+            terms.add(dictionary.term(i));
+        }
+
+        assertEquals(asList("us", "use", "useful", "user"), terms);
+    }
+
+    @Test
+    public void testAddAndRemoveTerms() {
+        JaSuggest jaSuggest = JaSuggest.builder().prebuiltWords().buildFrom("us", "use", "useful");
+
+        jaSuggest.addTerm("user");
+        jaSuggest.addTerm("useless");
+        jaSuggest.addTerm("use");
+        jaSuggest.removeTerm("useful");
+
+        assertEquals(asList("use", "useless", "user"), jaSuggest.findSuggestions("us"));
+
+        List<String> views = new ArrayList<>();
+        jaSuggest.findSuggestions("use", 10, term -> views.add(term.subSequence(3, term.length()).toString()));
+        assertEquals(asList("less", "r"), views);
+    }
+
+    @Test
+    public void testLongTerm() {
+        StringBuilder term = new StringBuilder();
+        for(int i = 0; i < 10000; ++i) {
+            term.append((char) ('a' + i % 26));
+        }
+        String longTerm = term.toString();
+
+        JaSuggest jaSuggest = JaSuggest.builder().prebuiltWords().buildFrom(longTerm, longTerm + "z", "abc");
+
+        assertEquals(asList("abc", longTerm, longTerm + "z"), jaSuggest.findSuggestions("ab"));
+    }
+}
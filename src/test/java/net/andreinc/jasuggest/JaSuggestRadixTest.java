@@ -0,0 +1,73 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JaSuggestRadixTest {
+
+    private static final List<String> ENGLISH_WORDS = getEnglishWords();
+
+    private static final String[] PREFIXES = { "", "a", "ab", "use", "usu", "usurp", "zz", "xyzw" };
+
+    @Test
+    public void testFindSuggestionsEmptyList() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().radix().buildFrom();
+
+        assertTrue(jaSuggest.isRadix());
+        assertTrue(jaSuggest.findSuggestions("").size() == 0);
+        assertTrue(jaSuggest.findSuggestions("a", 10).size() == 0);
+    }
+
+    @Test
+    public void testFindSuggestionsPrefixInsideLabel() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().radix()
+                                       .buildFrom("us", "usa", "use", "useful", "useless", "user", "usurper");
+
+        assertEquals(asList("usurper"), jaSuggest.findSuggestions("usu"));
+        assertEquals(asList("useful"), jaSuggest.findSuggestions("usef"));
+        assertEquals(asList("usa", "use"), jaSuggest.findSuggestions("us", 2));
+        assertTrue(jaSuggest.findSuggestions("usurper").isEmpty());
+        assertTrue(jaSuggest.findSuggestions("usx").isEmpty());
+        assertTrue(jaSuggest.findSuggestions("usu", 0).isEmpty());
+    }
+
+    @Test
+    public void testFindSuggestionsSameAsDefault() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().buildFrom(ENGLISH_WORDS);
+        JaSuggest radix = JaSuggest.builder().radix().buildFrom(ENGLISH_WORDS);
+        JaSuggest radixPrebuilt = JaSuggest.builder().radix().prebuiltWords().buildFrom(ENGLISH_WORDS);
+
+        for(String prefix : PREFIXES) {
+            assertEquals(jaSuggest.findSuggestions(prefix), radix.findSuggestions(prefix));
+            assertEquals(jaSuggest.findSuggestions(prefix, 10), radix.findSuggestions(prefix, 10));
+            assertEquals(jaSuggest.findSuggestions(prefix, 10), radixPrebuilt.findSuggestions(prefix, 10));
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCompactAndRadix() throws Exception {
+        JaSuggest.builder().compact().radix().buildFrom("us");
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JaSuggestSessionTest {
+
+    private static final List<String> ENGLISH_WORDS = getEnglishWords();
+
+    @Test
+    public void testTypingAndBackspace() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().ignoreCase().buildFrom(ENGLISH_WORDS);
+        JaSuggestSession session = jaSuggest.newSession();
+
+        for(char c : "UsEfUl".toCharArray()) {
+            session.append(c);
+            assertEquals(jaSuggest.findSuggestions(session.getPrefix(), 10), session.suggestions(10));
+        }
+
+        session.append("xq");
+        assertTrue(session.suggestions(10).isEmpty());
+
+        while (session.backspace()) {
+            assertEquals(jaSuggest.findSuggestions(session.getPrefix(), 10), session.suggestions(10));
+        }
+
+        assertEquals("", session.getPrefix());
+        assertFalse(session.backspace());
+    }
+
+    @Test
+    public void testTermsAddedDuringSession() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().prebuiltWords().buildFrom("us", "usa", "use");
+        JaSuggestSession session = jaSuggest.newSession().append("use");
+
+        assertTrue(session.suggestions(10).isEmpty());
+
+        jaSuggest.addTerm("user");
+        assertEquals(asList("user"), session.suggestions(10));
+
+        session.reset();
+        assertEquals(asList("us", "usa"), session.append('u').suggestions(2));
+    }
+
+    @Test
+    public void testCompactSession() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().compact().buildFrom("us", "usa", "use");
+        JaSuggestSession session = jaSuggest.newSession().append("us");
+
+        assertEquals(asList("usa", "use"), session.suggestions(10));
+        session.backspace();
+        assertEquals(asList("us", "usa"), session.suggestions(2));
+    }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertEquals;
+
+public class JaSuggestSinkTest {
+
+    @Test
+    public void testSinkSameAsList() {
+        List<String> words = getEnglishWords();
+
+        List<JaSuggest> jaSuggests = asList(
+                JaSuggest.builder().buildFrom(words),
+                JaSuggest.builder().prebuiltWords().buildFrom(words),
+                JaSuggest.builder().withCache().buildFrom(words),
+                JaSuggest.builder().compact().buildFrom(words),
+                JaSuggest.builder().radix().buildFrom(words),
+                JaSuggest.builder().radix().prebuiltWords().buildFrom(words),
+                JaSuggest.builder().dawg().buildFrom(words)
+        );
+
+        List<String> results = new ArrayList<>();
+        for(JaSuggest jaSuggest : jaSuggests) {
+            for(String prefix : asList("", "a", "con", "usel", "abracadabra", "zz")) {
+                for(int maxResults : asList(0, 1, 7, Integer.MAX_VALUE)) {
+                    // The same List is reused for all the queries
+                    results.clear();
+                    jaSuggest.findSuggestions(prefix, maxResults, results);
+                    assertEquals(prefix + "/" + maxResults, jaSuggest.findSuggestions(prefix, maxResults), results);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSinkUsesAndFillsTheCache() {
+        JaSuggest jaSuggest = JaSuggest.builder().withCache().withMetrics().buildFrom("us", "usa", "use", "useful", "user");
+
+        List<String> results = new ArrayList<>();
+        jaSuggest.findSuggestions("", Integer.MAX_VALUE, results);
+        assertEquals(1, jaSuggest.cacheSize());
+
+        // Derived from the complete list of "", then cached
+        results.clear();
+        jaSuggest.findSuggestions("use", 1, results);
+        assertEquals(asList("useful"), results);
+
+        results.clear();
+        jaSuggest.findSuggestions("use", 1, results);
+        assertEquals(asList("useful"), results);
+
+        JaSuggestMetrics.Snapshot snapshot = jaSuggest.getMetrics().snapshot();
+        assertEquals(1, snapshot.getCacheMisses());
+        assertEquals(1, snapshot.getCacheDerived());
+        assertEquals(1, snapshot.getCacheHits());
+    }
+
+    @Test
+    public void testSinkReceivesReusedView() {
+        JaSuggest jaSuggest = JaSuggest.builder().buildFrom("us", "usa", "use", "useful", "user");
+
+        StringBuilder lengths = new StringBuilder();
+        List<String> terms = new ArrayList<>();
+        jaSuggest.findSuggestions("us", Integer.MAX_VALUE, term -> {
+            lengths.append(term.length());
+            terms.add(term.toString());
+        });
+
+        assertEquals("3364", lengths.toString());
+        assertEquals(asList("usa", "use", "useful", "user"), terms);
+    }
+
+    @Test
+    public void testSinkRunningAnotherQuery() {
+        JaSuggest jaSuggest = JaSuggest.builder().buildFrom("us", "usa", "use", "useful", "user");
+
+        List<String> pairs = new ArrayList<>();
+        jaSuggest.findSuggestions("us", 2, term -> {
+            String first = term.toString();
+            jaSuggest.findSuggestions(first, 10, inner -> pairs.add(first + ":" + inner));
+            pairs.add(term.toString());
+        });
+
+        assertEquals(asList("usa", "use:useful", "use:user", "use"), pairs);
+    }
+
+    @Test
+    public void testFrozenSinkRunningAnotherQuery() {
+        // The outer and the inner queries use different traversal buffers, whatever the index
+        for(JaSuggest jaSuggest : asList(JaSuggest.builder().compact().buildFrom("us", "usa", "use", "useful", "user"),
+                                         JaSuggest.builder().radix().buildFrom("us", "usa", "use", "useful", "user"),
+                                         JaSuggest.builder().dawg().buildFrom("us", "usa", "use", "useful", "user"))) {
+            List<String> pairs = new ArrayList<>();
+            jaSuggest.findSuggestions("us", 2, term -> {
+                String first = term.toString();
+                jaSuggest.findSuggestions(first, 10, inner -> pairs.add(first + ":" + inner));
+                pairs.add(term.toString());
+            });
+
+            assertEquals(asList("usa", "use:useful", "use:user", "use"), pairs);
+        }
+    }
+
+    @Test
+    public void testSinkIgnoreCaseAndMetrics() {
+        JaSuggest jaSuggest = JaSuggest.builder().ignoreCase().withMetrics().buildFrom("Use", "Useful", "User");
+
+        List<String> results = new ArrayList<>();
+        jaSuggest.findSuggestions("USE", 10, results);
+
+        assertEquals(asList("useful", "user"), results);
+        assertEquals(1, jaSuggest.getMetrics().snapshot().getQueries());
+        assertEquals(2, jaSuggest.getMetrics().snapshot().getResults());
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JaSuggestStatsTest {
+
+    private static final String[] WORDS = { "us", "usa", "use", "user" };
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testTrieStructure() {
+        JaSuggestStats stats = JaSuggest.builder().buildFrom(WORDS).stats();
+
+        assertEquals("trie", stats.getEngine());
+        // root, u, s, a, e, r
+        assertEquals(6, stats.getNodes());
+        assertEquals(4, stats.getTerms());
+        assertEquals(2, stats.getLeaves());
+        assertEquals(4, stats.getMaxDepth());
+        assertArrayEquals(new long[] { 1, 1, 1, 2, 1 }, stats.getDepthHistogram());
+        assertArrayEquals(new long[] { 2, 3, 1 }, stats.getFanOutHistogram());
+        assertEquals(1.25, stats.getAverageFanOut(), 1e-9);
+        assertTrue(stats.getIndexBytes() > 0);
+        assertEquals(0, stats.getTermBytes());
+        assertEquals(stats.getIndexBytes(), stats.getTotalBytes());
+    }
+
+    @Test
+    public void testFrozenEngines() throws IOException {
+        JaSuggestStats trie = JaSuggest.builder().buildFrom(WORDS).stats();
+        JaSuggestStats compact = JaSuggest.builder().compact().buildFrom(WORDS).stats();
+
+        assertEquals("compact", compact.getEngine());
+        assertEquals(trie.getNodes(), compact.getNodes());
+        assertArrayEquals(trie.getDepthHistogram(), compact.getDepthHistogram());
+        assertArrayEquals(trie.getFanOutHistogram(), compact.getFanOutHistogram());
+        assertTrue(compact.getIndexBytes() < trie.getIndexBytes());
+
+        // root, "us", "a", "e", "r"
+        JaSuggestStats radix = JaSuggest.builder().radix().buildFrom(WORDS).stats();
+        assertEquals("radix", radix.getEngine());
+        assertEquals(5, radix.getNodes());
+        assertEquals(4, radix.getTerms());
+
+        // "usa" and "user" end in the same final state
+        JaSuggestStats dawg = JaSuggest.builder().dawg().buildFrom(WORDS).stats();
+        assertEquals("dawg", dawg.getEngine());
+        assertEquals(5, dawg.getNodes());
+
+        Path path = folder.getRoot().toPath().resolve("words.idx");
+        JaSuggest.builder().buildFrom(WORDS).writeTo(path);
+        JaSuggestStats mapped = JaSuggest.builder().buildFromIndexFile(path).stats();
+        assertEquals("mapped", mapped.getEngine());
+        assertEquals(trie.getNodes(), mapped.getNodes());
+        assertEquals(Files.size(path), mapped.getMappedBytes());
+    }
+
+    @Test
+    public void testTermsInfixIndexAndCache() {
+        JaSuggest jaSuggest = JaSuggest.builder().prebuiltWords().withInfixIndex().withCache().buildFrom(WORDS);
+        jaSuggest.findSuggestions("us");
+
+        JaSuggestStats stats = jaSuggest.stats();
+        assertTrue(stats.getTermBytes() > 0);
+        assertTrue(stats.getInfixIndexBytes() > 0);
+        assertEquals(1, stats.getCacheEntries());
+        assertTrue(stats.getCacheBytes() > 0);
+        assertEquals(stats.getIndexBytes() + stats.getTermBytes() + stats.getInfixIndexBytes() + stats.getCacheBytes(),
+                     stats.getTotalBytes());
+    }
+
+    @Test
+    public void testCategoriesAreCounted() {
+        Map<String, List<Integer>> categorized = new HashMap<>();
+        for(String word : WORDS) {
+            categorized.put(word, singletonList(100));
+        }
+
+        JaSuggestStats plain = JaSuggest.builder().buildFrom(WORDS).stats();
+        long withCategories = JaSuggest.builder().buildFromCategorized(categorized).stats().getIndexBytes();
+
+        // The weights and the categories of each node, and a single shared bitset of two longs
+        assertEquals(plain.getIndexBytes() + 24 * plain.getNodes() + 32, withCategories);
+    }
+
+    @Test
+    public void testDeepTrie() {
+        String term = deepTerm(100000);
+
+        JaSuggestStats stats = JaSuggest.builder().buildFrom(term).stats();
+        assertEquals(100000, stats.getMaxDepth());
+        assertEquals(100001, stats.getNodes());
+        assertEquals(1, stats.getTerms());
+
+        for(JaSuggest.JaSuggestBuilder builder : asList(JaSuggest.builder().prebuiltWords(), JaSuggest.builder().compact(),
+                                                       JaSuggest.builder().radix().prebuiltWords(), JaSuggest.builder().dawg())) {
+            stats = builder.buildFrom(term, term.substring(0, 5000)).stats();
+            assertEquals(2, stats.getTerms());
+            // The nodes of a radix Trie hold whole chains
+            assertEquals("radix".equals(stats.getEngine()) ? 2 : 100000, stats.getMaxDepth());
+        }
+    }
+
+    @Test
+    public void testProjectMemoryDeepTerm() {
+        Map<JaSuggestStats.Option, Long> projection = JaSuggest.builder().projectMemory(asList(deepTerm(10000), "abc"));
+
+        assertEquals(JaSuggestStats.Option.values().length, projection.size());
+        for(long bytes : projection.values()) {
+            assertTrue(bytes > 0);
+        }
+    }
+
+    @Test
+    public void testProjectMemory() {
+        Map<JaSuggestStats.Option, Long> projection = JaSuggest.builder().projectMemory(getEnglishWords());
+
+        assertEquals(JaSuggestStats.Option.values().length, projection.size());
+        long trie = projection.get(JaSuggestStats.Option.TRIE);
+        assertTrue(projection.get(JaSuggestStats.Option.PREBUILT_WORDS) > trie);
+        assertTrue(projection.get(JaSuggestStats.Option.RADIX) < trie);
+        assertTrue(projection.get(JaSuggestStats.Option.RADIX_PREBUILT_WORDS) > projection.get(JaSuggestStats.Option.RADIX));
+        assertTrue(projection.get(JaSuggestStats.Option.COMPACT) < projection.get(JaSuggestStats.Option.RADIX));
+        assertTrue(projection.get(JaSuggestStats.Option.DAWG) < projection.get(JaSuggestStats.Option.COMPACT));
+        assertTrue(projection.get(JaSuggestStats.Option.INFIX_INDEX) > 0);
+
+        // The frozen indexes are measured exactly as when they are built
+        assertEquals((long) projection.get(JaSuggestStats.Option.COMPACT),
+                     JaSuggest.builder().compact().buildFrom(getEnglishWords()).stats().getIndexBytes());
+
+        // The radix Trie keeps the ids of the terms, like the Trie: both only add the packed terms
+        assertEquals(projection.get(JaSuggestStats.Option.PREBUILT_WORDS) - trie,
+                     projection.get(JaSuggestStats.Option.RADIX_PREBUILT_WORDS) - projection.get(JaSuggestStats.Option.RADIX));
+        JaSuggestStats radixPrebuilt = JaSuggest.builder().radix().prebuiltWords().buildFrom(getEnglishWords()).stats();
+        assertEquals((long) projection.get(JaSuggestStats.Option.RADIX_PREBUILT_WORDS),
+                     radixPrebuilt.getIndexBytes() + radixPrebuilt.getTermBytes());
+    }
+
+    private static String deepTerm(int length) {
+        StringBuilder term = new StringBuilder();
+        for(int i = 0; i < length; ++i) {
+            term.append((char) ('a' + i % 26));
+        }
+        return term.toString();
+    }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class JaSuggestStreamTest {
+
+    private static final List<String> ENGLISH_WORDS = getEnglishWords();
+
+    @Test
+    public void testStreamSameAsFindSuggestions() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().ignoreCase().buildFrom(ENGLISH_WORDS);
+
+        for(String prefix : asList("", "c", "Ab", "usef", "xyzw")) {
+            assertEquals(jaSuggest.findSuggestions(prefix), jaSuggest.streamSuggestions(prefix).collect(Collectors.toList()));
+            assertEquals(jaSuggest.findSuggestions(prefix, 7), jaSuggest.streamSuggestions(prefix).limit(7).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void testParallelStreamKeepsOrder() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().prebuiltWords().buildFrom(ENGLISH_WORDS);
+
+        assertEquals(jaSuggest.findSuggestions("c"), jaSuggest.streamSuggestions("c").parallel().collect(Collectors.toList()));
+        assertEquals(jaSuggest.findSuggestions("").size(), jaSuggest.streamSuggestions("").parallel().count());
+    }
+
+    @Test
+    public void testSplitBySubTries() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().buildFrom("us", "usa", "use", "user", "util");
+
+        Spliterator<String> second = jaSuggest.streamSuggestions("u").spliterator();
+        Spliterator<String> first = second.trySplit();
+
+        assertNotNull(first);
+        assertTrue(second.hasCharacteristics(Spliterator.SORTED));
+
+        StringBuilder terms = new StringBuilder();
+        first.forEachRemaining(t -> terms.append(t).append(' '));
+        terms.append("| ");
+        second.forEachRemaining(t -> terms.append(t).append(' '));
+
+        assertEquals("us usa use user | util ", terms.toString());
+    }
+
+    @Test
+    public void testStreamCompact() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().compact().buildFrom("us", "usa", "use");
+
+        assertEquals(asList("usa", "use"), jaSuggest.streamSuggestions("us").collect(Collectors.toList()));
+        assertEquals(0, jaSuggest.streamSuggestions("x").count());
+    }
+}
@@ -0,0 +1,152 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JaSuggestUpdateTest {
+
+    private static final List<String> ENGLISH_WORDS = getEnglishWords();
+
+    @Test
+    public void testAddAndRemoveTerm() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().buildFrom("us", "usa", "use");
+
+        assertTrue(jaSuggest.addTerm("useful"));
+        assertFalse(jaSuggest.addTerm("useful"));
+        assertFalse(jaSuggest.addTerm(""));
+        assertEquals(asList("usa", "use", "useful"), jaSuggest.findSuggestions("us"));
+
+        assertTrue(jaSuggest.removeTerm("use"));
+        assertFalse(jaSuggest.removeTerm("use"));
+        assertFalse(jaSuggest.removeTerm("user"));
+        assertEquals(asList("usa", "useful"), jaSuggest.findSuggestions("us"));
+
+        assertTrue(jaSuggest.removeTerm("useful"));
+        assertEquals(emptyList(), jaSuggest.findSuggestions("use"));
+        assertEquals(asList("us", "usa"), jaSuggest.findSuggestions("u"));
+    }
+
+    @Test
+    public void testAddAndRemoveTermPrebuiltIgnoreCase() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().prebuiltWords().ignoreCase().buildFrom(asList("us", "usa"));
+
+        assertTrue(jaSuggest.addTerm("USER"));
+        assertEquals(asList("usa", "user"), jaSuggest.findSuggestions("Us"));
+
+        assertTrue(jaSuggest.removeTerm("Usa"));
+        assertEquals(asList("user"), jaSuggest.findSuggestions("us"));
+    }
+
+    @Test
+    public void testAddAndRemoveWeightedTerm() throws Exception {
+        Map<String, Long> terms = new HashMap<>();
+        terms.put("user", 10L);
+        terms.put("useful", 5L);
+
+        JaSuggest jaSuggest = JaSuggest.builder().buildFromWeighted(terms);
+        jaSuggest.addTerm("usa", 20L);
+
+        assertEquals(asList("usa", "user", "useful"), jaSuggest.findTopSuggestions("us", 10));
+
+        jaSuggest.removeTerm("usa");
+        jaSuggest.removeTerm("user");
+        jaSuggest.addTerm("usurper", 1L);
+
+        assertEquals(asList("useful", "usurper"), jaSuggest.findTopSuggestions("us", 10));
+    }
+
+    @Test
+    public void testInvalidateOnlyAffectedPrefixes() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().withCache().buildFrom("us", "usa", "ux", "util");
+
+        assertEquals(asList("usa"), jaSuggest.findSuggestions("us"));
+        assertEquals(asList("util"), jaSuggest.findSuggestions("ut"));
+        assertEquals(2, jaSuggest.cacheSize());
+
+        jaSuggest.addTerm("use");
+
+        assertEquals(1, jaSuggest.cacheSize());
+        assertTrue(jaSuggest.cacheSnapshot().containsKey("ut"));
+        assertEquals(asList("usa", "use"), jaSuggest.findSuggestions("us"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAddTermCompact() throws Exception {
+        JaSuggest.builder().compact().buildFrom("us").addTerm("usa");
+    }
+
+    @Test
+    public void testConcurrentReadsAndWrites() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().withCache().buildFrom(ENGLISH_WORDS);
+        List<String> expected = jaSuggest.findSuggestions("ab");
+
+        AtomicBoolean done = new AtomicBoolean(false);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> readers = new ArrayList<>();
+
+        for(int i = 0; i < 3; ++i) {
+            readers.add(executor.submit(() -> {
+                while (!done.get()) {
+                    // The writer never touches "ab..."
+                    assertEquals(expected, jaSuggest.findSuggestions("ab"));
+                    for(String suggestion : jaSuggest.findSuggestions("zz")) {
+                        assertTrue(suggestion.startsWith("zz"));
+                    }
+                }
+            }));
+        }
+
+        for(int i = 0; i < 2000; ++i) {
+            jaSuggest.addTerm("zz" + i);
+            if (i % 2 == 0) {
+                jaSuggest.removeTerm("zz" + i);
+            }
+        }
+        done.set(true);
+
+        for(Future<?> reader : readers) {
+            reader.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertEquals(1000, jaSuggest.findSuggestions("zz").size() - expectedZZ());
+        assertEquals(expected, jaSuggest.findSuggestions("ab"));
+    }
+
+    private static int expectedZZ() {
+        return JaSuggest.builder().buildFrom(ENGLISH_WORDS).findSuggestions("zz").size();
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Arrays.asList;
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class JaSuggestWeightedTest {
+
+    @Test
+    public void testFindTopSuggestionsOrderedByWeight() throws Exception {
+        Map<String, Long> terms = new HashMap<>();
+        terms.put("us", 100L);
+        terms.put("usa", 50L);
+        terms.put("use", 10L);
+        terms.put("useful", 80L);
+        terms.put("useless", 20L);
+        terms.put("user", 80L);
+        terms.put("usurper", 1L);
+
+        JaSuggest jaSuggest = JaSuggest.builder().buildFromWeighted(terms);
+
+        assertEquals(asList("useful", "user", "usa"), jaSuggest.findTopSuggestions("us", 3));
+        assertEquals(asList("useful", "user", "useless"), jaSuggest.findTopSuggestions("use", 10));
+        assertEquals(asList("us", "useful"), jaSuggest.findTopSuggestions("", 2));
+        assertTrue(jaSuggest.findTopSuggestions("x", 2).isEmpty());
+        assertTrue(jaSuggest.findTopSuggestions("us", 0).isEmpty());
+    }
+
+    @Test
+    public void testFindTopSuggestionsSameAsSortingAllResults() throws Exception {
+        Map<String, Long> terms = new HashMap<>();
+        for(String word : getEnglishWords()) {
+            terms.put(word, (long) (word.hashCode() & 0xFF));
+        }
+
+        JaSuggest jaSuggest = JaSuggest.builder().ignoreCase().buildFromWeighted(terms);
+
+        List<String> expected = new ArrayList<>(jaSuggest.findSuggestions("ab"));
+        expected.sort((t1, t2) -> {
+            int cmp = Long.compare(terms.get(t2), terms.get(t1));
+            return (cmp != 0) ? cmp : t1.compareTo(t2);
+        });
+
+        assertEquals(expected.subList(0, 20), jaSuggest.findTopSuggestions("AB", 20));
+        assertEquals(expected, jaSuggest.findTopSuggestions("ab", Integer.MAX_VALUE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeWeight() throws Exception {
+        Map<String, Long> terms = new HashMap<>();
+        terms.put("us", -1L);
+        JaSuggest.builder().buildFromWeighted(terms);
+    }
+
+    @Test
+    public void testWeightAddedToPlainTrie() throws Exception {
+        JaSuggest jaSuggest = JaSuggest.builder().buildFrom("us", "usa", "use", "user");
+        assertFalse(jaSuggest.root() instanceof JaAnnotatedMap);
+        assertEquals(asList("usa", "use"), jaSuggest.findTopSuggestions("us", 2));
+
+        jaSuggest.addTerm("useful", 5L);
+        jaSuggest.addTerm("user", 3L);
+
+        assertTrue(jaSuggest.root() instanceof JaAnnotatedMap);
+        assertEquals(asList("useful", "user", "usa", "use"), jaSuggest.findTopSuggestions("us", 10));
+        assertEquals(asList("usa", "use", "useful", "user"), jaSuggest.findSuggestions("us"));
+    }
+}
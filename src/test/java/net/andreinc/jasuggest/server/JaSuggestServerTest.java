@@ -0,0 +1,184 @@
+/**
+ * Copyright 2017 Andrei N. Ciobanu
+
+ Licensed under the Apache License, Version 2.0 (the "License");
+ you may not use this file except in compliance with the License.
+ You may obtain a copy of the License at
+
+ http://www.apache.org/licenses/LICENSE-2.0
+
+ Unless required by applicable law or agreed to in writing, software
+ distributed under the License is distributed on an "AS IS" BASIS,
+ WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ See the License for the specific language governing permissions and
+ limitations under the License.
+ */
+
+package net.andreinc.jasuggest.server;
+
+import net.andreinc.jasuggest.JaSuggest;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static net.andreinc.jasuggest.TestUtils.getEnglishWords;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JaSuggestServerTest {
+
+    private static JaSuggestServer server;
+
+    @BeforeClass
+    public static void start() {
+        JaSuggest jaSuggest = JaSuggest.builder().ignoreCase().buildFrom(getEnglishWords());
+        server = JaSuggestServer.builder().host("127.0.0.1").port(0).start(jaSuggest);
+    }
+
+    @AfterClass
+    public static void stop() {
+        server.stop();
+    }
+
+    @Test
+    public void testSuggest() throws IOException {
+        assertEquals("[\"useful\",\"usefully\",\"usefulness\"]", get("/suggest?prefix=usef&max=3"));
+        assertEquals("[\"useful\",\"usefully\",\"usefulness\"]", get("/suggest?prefix=USEF&max=3"));
+        assertEquals("[]", get("/suggest?prefix=xyzxyz"));
+    }
+
+    @Test
+    public void testDefaultMaxResults() throws IOException {
+        String body = get("/suggest?prefix=a");
+        assertEquals(10, body.split(",").length);
+    }
+
+    @Test
+    public void testBadRequests() throws IOException {
+        assertEquals(400, status("/suggest", "GET"));
+        assertEquals(400, status("/suggest?prefix=us&max=abc", "GET"));
+        assertEquals(400, status("/suggest?prefix=us&max=0", "GET"));
+        assertEquals(400, status("/suggest?prefix=us&max=100000", "GET"));
+        assertEquals(405, status("/suggest?prefix=us", "POST"));
+    }
+
+    @Test
+    public void testJsonEscaping() throws IOException {
+        JaSuggest jaSuggest = JaSuggest.builder().buildFrom("a\"b", "a\\c", "a\td");
+        try (JaSuggestServer escaping = JaSuggestServer.builder().host("127.0.0.1").port(0).start(jaSuggest)) {
+            String body = get(escaping, "/suggest?prefix=a");
+            assertEquals("[\"a\\u0009d\",\"a\\\"b\",\"a\\\\c\"]", body);
+        }
+    }
+
+    @Test
+    public void testConcurrentIdenticalRequests() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            long before = server.getRequests();
+            List<Future<String>> futures = new ArrayList<>();
+            for(int i = 0; i < 64; ++i) {
+                futures.add(executor.submit(() -> get("/suggest?prefix=a&max=1000")));
+            }
+            String expected = futures.get(0).get();
+            for(Future<String> future : futures) {
+                assertEquals(expected, future.get());
+            }
+            assertEquals(before + 64, server.getRequests());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testIgnoredCaseRequestsShareTheKey() {
+        JaSuggest ignoreCase = JaSuggest.builder().ignoreCase().buildFrom("useful", "user");
+        assertEquals(JaSuggestServer.inFlightKey(ignoreCase, "use", 10), JaSuggestServer.inFlightKey(ignoreCase, "USE", 10));
+
+        JaSuggest caseSensitive = JaSuggest.builder().buildFrom("useful", "user");
+        assertNotEquals(JaSuggestServer.inFlightKey(caseSensitive, "use", 10), JaSuggestServer.inFlightKey(caseSensitive, "USE", 10));
+    }
+
+    @Test
+    public void testNoDelayIsOptIn() {
+        String previous = System.clearProperty(JaSuggestServer.NO_DELAY_PROPERTY);
+        try {
+            JaSuggest jaSuggest = JaSuggest.builder().buildFrom("a");
+            try (JaSuggestServer plain = JaSuggestServer.builder().host("127.0.0.1").port(0).start(jaSuggest)) {
+                assertNull(System.getProperty(JaSuggestServer.NO_DELAY_PROPERTY));
+            }
+            try (JaSuggestServer noDelay = JaSuggestServer.builder().host("127.0.0.1").port(0).tcpNoDelay().start(jaSuggest)) {
+                assertEquals("true", System.getProperty(JaSuggestServer.NO_DELAY_PROPERTY));
+            }
+        } finally {
+            if (previous == null) {
+                System.clearProperty(JaSuggestServer.NO_DELAY_PROPERTY);
+            } else {
+                System.setProperty(JaSuggestServer.NO_DELAY_PROPERTY, previous);
+            }
+        }
+    }
+
+    @Test
+    public void testLoadGenerator() {
+        URI endpoint = URI.create("http://127.0.0.1:" + server.getPort() + "/suggest");
+        JaSuggestLoadGenerator.Report report =
+                JaSuggestLoadGenerator.run(endpoint, Arrays.asList("a", "us", "use", "xyz"), 10, 4, 300, TimeUnit.MILLISECONDS);
+
+        assertTrue(report.getRequests() > 0);
+        assertEquals(0, report.getErrors());
+        assertTrue(report.getThroughput() > 0);
+        assertTrue(report.latencyNanos(50) <= report.latencyNanos(99));
+        assertTrue(report.latencyNanos(99) <= report.latencyNanos(100));
+    }
+
+    private static String get(String path) throws IOException {
+        return get(server, path);
+    }
+
+    private static String get(JaSuggestServer server, String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+        assertEquals(200, connection.getResponseCode());
+        assertEquals("application/json; charset=utf-8", connection.getContentType());
+        try (InputStream in = connection.getInputStream()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            for(int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), UTF_8);
+        }
+    }
+
+    private static int status(String path, String method) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL("http://127.0.0.1:" + server.getPort() + path).openConnection();
+        connection.setRequestMethod(method);
+        if ("POST".equals(method)) {
+            connection.setDoOutput(true);
+            connection.getOutputStream().close();
+        }
+        int status = connection.getResponseCode();
+        InputStream error = connection.getErrorStream();
+        if (error != null) {
+            error.close();
+        }
+        return status;
+    }
+}